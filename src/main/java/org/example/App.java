@@ -6,8 +6,10 @@ import java.util.Scanner;
 
 import org.example.digital_scroll_management.DigitalScrollRepository;
 import org.example.digital_scroll_management.DigitalScrollService;
+import org.example.digital_scroll_management.ScrollServiceOptions;
 import org.example.scroll_seeker.ScrollSeekerConsole;
 import org.example.scroll_seeker.ScrollSeekerService;
+import org.example.storage.ShardedLayout;
 import org.example.user_management.PasswordHasher;
 import org.example.user_management.UserManagementUI;
 import org.example.user_management.UserManager;
@@ -18,16 +20,31 @@ public class App {
         Path storagePath = Paths.get("data", "users.db");
         Path scrollStoragePath = Paths.get("data", "scrolls", "scrolls.db");
         Path uploadDirectory = Paths.get("data", "uploads");
-        UserRepository userRepository = new UserRepository(storagePath);
+        long userCommitWindowMillis = 25;
+        UserRepository userRepository = new UserRepository(storagePath, userCommitWindowMillis, true);
         PasswordHasher hasher = new PasswordHasher();
-        UserManager userManager = new UserManager(userRepository, hasher);
-        DigitalScrollRepository scrollRepository = new DigitalScrollRepository(scrollStoragePath);
-        DigitalScrollService scrollService = new DigitalScrollService(scrollRepository, uploadDirectory);
+        UserManager userManager = new UserManager(userRepository, hasher, Paths.get("data", "profile_pictures"), ShardedLayout.TWO_LEVEL);
+        userManager.migrateProfilePictures();
+        int scrollLogCompactionThreshold = 500;
+        int scrollVersionsRetained = 5;
+        long downloadCounterFlushMillis = 1000;
+        DigitalScrollRepository scrollRepository = new DigitalScrollRepository(scrollStoragePath, scrollLogCompactionThreshold, true,
+                downloadCounterFlushMillis);
+        ScrollServiceOptions scrollOptions = new ScrollServiceOptions()
+                .deduplicateUploads(true)
+                .retainedVersions(scrollVersionsRetained)
+                .compressUploads(true)
+                .layout(ShardedLayout.TWO_LEVEL);
+        DigitalScrollService scrollService = new DigitalScrollService(scrollRepository, uploadDirectory, scrollOptions);
+        scrollService.migrateStorageLayout(Runtime.getRuntime().availableProcessors(), 500);
         ScrollSeekerService scrollSeekerService = new ScrollSeekerService(scrollService);
         try (Scanner scanner = new Scanner(System.in)) {
             ScrollSeekerConsole seekerConsole = new ScrollSeekerConsole(scanner, scrollSeekerService);
             UserManagementUI ui = new UserManagementUI(scanner, userManager, scrollService, seekerConsole);
             ui.start();
+        } finally {
+            scrollRepository.close();
+            userRepository.close();
         }
     }
 }
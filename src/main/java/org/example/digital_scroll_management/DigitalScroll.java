@@ -1,6 +1,7 @@
 package org.example.digital_scroll_management;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
 
 public class DigitalScroll {
     private final String scrollId;
@@ -9,7 +10,9 @@ public class DigitalScroll {
     private String ownerUsername;
     private String filePath;
     private int uploadCount;
-    private int downloadCount;
+    private final LongAdder downloadCount;
+    private long contentSize = -1;
+    private String contentHash;
 
     public DigitalScroll(String scrollId,
                          String name,
@@ -24,7 +27,20 @@ public class DigitalScroll {
         this.filePath = filePath;
         this.uploadTimestamp = uploadTimestamp;
         this.uploadCount = uploadCount;
-        this.downloadCount = downloadCount;
+        this.downloadCount = new LongAdder();
+        this.downloadCount.add(downloadCount);
+    }
+
+    DigitalScroll(ScrollSnapshot snapshot, DigitalScroll previous) {
+        this.scrollId = snapshot.scrollId();
+        this.name = snapshot.name();
+        this.ownerUsername = snapshot.ownerUsername();
+        this.filePath = snapshot.filePath();
+        this.uploadTimestamp = snapshot.uploadTimestamp();
+        this.uploadCount = snapshot.uploadCount();
+        this.contentSize = snapshot.contentSize();
+        this.contentHash = snapshot.contentHash();
+        this.downloadCount = previous.downloadCount;
     }
 
     public String getScrollId() {
@@ -68,10 +84,27 @@ public class DigitalScroll {
     }
 
     public int getDownloadCount() {
-        return downloadCount;
+        return downloadCount.intValue();
     }
 
     public void incrementDownloadCount() {
-        this.downloadCount++;
+        downloadCount.increment();
+    }
+
+    void addDownloads(long downloads) {
+        downloadCount.add(downloads);
+    }
+
+    public long getContentSize() {
+        return contentSize;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentFingerprint(long contentSize, String contentHash) {
+        this.contentSize = contentSize;
+        this.contentHash = contentHash;
     }
 }
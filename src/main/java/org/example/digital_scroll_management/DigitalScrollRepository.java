@@ -6,49 +6,480 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.example.storage.SnapshotReader;
+import org.example.storage.SnapshotWriter;
 
 public class DigitalScrollRepository {
     private static final String DELIMITER = "|";
+    private static final String LOG_SUFFIX = ".wal";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final String COUNTER_SUFFIX = ".counters";
+    private static final String METRICS_SUFFIX = ".metrics";
+    private static final String ID_LEASE_SUFFIX = ".ids";
+    private static final int ID_LEASE_BLOCK = 64;
+    private static final long DEFAULT_COUNTER_FLUSH_MILLIS = 1000;
+    private static final int FINGERPRINT_FIELDS = 9;
+    private static final int SNAPSHOT_FIELDS = 10;
 
     private final Path storagePath;
+    private final Path snapshotPath;
+    private final boolean binarySnapshot;
     private final Map<String, DigitalScroll> scrolls = new LinkedHashMap<>();
-    private int nextId = 1;
+    private final Map<String, ScrollSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ScrollCatalogIndex catalogIndex = new ScrollCatalogIndex();
+    private final ScrollTrigramIndex trigramIndex = new ScrollTrigramIndex();
+    private final ScrollStatisticsIndex statisticsIndex = new ScrollStatisticsIndex();
+    private final Map<ScrollRanking, ScrollLeaderboard> leaderboards = new EnumMap<>(ScrollRanking.class);
+    private final ScrollWriteAheadLog writeAheadLog;
+    private final int compactionThreshold;
+    private final ScrollDownloadMetrics downloadMetrics;
+    private final ScrollDownloadCounters downloadCounters;
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final Lock commitLock = new ReentrantLock();
+    private volatile long version;
+    private volatile CatalogView view = new CatalogView(-1, List.of());
+    private final ScrollIdAllocator idAllocator;
 
     public DigitalScrollRepository(Path storagePath) {
+        this(storagePath, 0);
+    }
+
+    public DigitalScrollRepository(Path storagePath, int compactionThreshold) {
+        this(storagePath, compactionThreshold, false);
+    }
+
+    public DigitalScrollRepository(Path storagePath, int compactionThreshold, boolean binarySnapshot) {
+        this(storagePath, compactionThreshold, binarySnapshot, DEFAULT_COUNTER_FLUSH_MILLIS);
+    }
+
+    public DigitalScrollRepository(Path storagePath,
+                                   int compactionThreshold,
+                                   boolean binarySnapshot,
+                                   long counterFlushMillis) {
         this.storagePath = storagePath;
+        this.snapshotPath = Path.of(storagePath.toString() + SNAPSHOT_SUFFIX);
+        this.binarySnapshot = binarySnapshot;
+        this.compactionThreshold = compactionThreshold;
+        for (ScrollRanking ranking : ScrollRanking.values()) {
+            leaderboards.put(ranking, new ScrollLeaderboard());
+        }
+        this.idAllocator = new ScrollIdAllocator(Path.of(storagePath.toString() + ID_LEASE_SUFFIX), ID_LEASE_BLOCK);
+        this.writeAheadLog = new ScrollWriteAheadLog(Path.of(storagePath.toString() + LOG_SUFFIX));
+        this.downloadMetrics = new ScrollDownloadMetrics(Path.of(storagePath.toString() + METRICS_SUFFIX));
+        this.downloadCounters = new ScrollDownloadCounters(Path.of(storagePath.toString() + COUNTER_SUFFIX),
+                downloadMetrics, counterFlushMillis);
         loadFromFile();
+        idAllocator.load();
+        downloadCounters.load(scrolls.values());
+        for (DigitalScroll scroll : scrolls.values()) {
+            statisticsIndex.syncDownloads(scroll);
+            rankDownloads(scroll);
+        }
+        downloadMetrics.load(scrolls.keySet());
+    }
+
+    public List<DigitalScroll> getAll() {
+        CatalogView current = view;
+        if (current.version() == version) {
+            return current.scrolls();
+        }
+        return read(() -> {
+            CatalogView next = new CatalogView(version, List.copyOf(scrolls.values()));
+            view = next;
+            return next.scrolls();
+        });
     }
 
-    public synchronized List<DigitalScroll> getAll() {
-        return new ArrayList<>(scrolls.values());
+    public DigitalScroll findById(String id) {
+        return read(() -> scrolls.get(id));
     }
 
-    public synchronized DigitalScroll findById(String id) {
-        return scrolls.get(id);
+    public ScrollSnapshot findSnapshot(String id) {
+        return id == null ? null : snapshots.get(id);
     }
 
-    public synchronized void save(DigitalScroll scroll) {
-        scrolls.put(scroll.getScrollId(), scroll);
-        persist();
+    public DigitalScroll findByName(String name) {
+        return read(() -> {
+            String id = catalogIndex.findIdByName(name);
+            return id == null ? null : scrolls.get(id);
+        });
     }
 
-    public synchronized void delete(String id) {
-        scrolls.remove(id);
-        persist();
+    public List<DigitalScroll> findByOwner(String ownerUsername) {
+        return read(() -> {
+            List<DigitalScroll> result = new ArrayList<>();
+            for (String id : catalogIndex.findIdsByOwner(ownerUsername)) {
+                result.add(scrolls.get(id));
+            }
+            return result;
+        });
+    }
+
+    public List<String> findIdsUploadedBetween(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        return read(() -> catalogIndex.findIdsUploadedBetween(fromInclusive, toExclusive));
+    }
+
+    public List<DigitalScroll> findAll(ScrollOrder order, Predicate<DigitalScroll> filter) {
+        return read(() -> {
+            List<DigitalScroll> result = new ArrayList<>();
+            Iterator<String> ids = catalogIndex.iterateIds(order, null);
+            while (ids.hasNext()) {
+                DigitalScroll scroll = scrolls.get(ids.next());
+                if (scroll != null && (filter == null || filter.test(scroll))) {
+                    result.add(scroll);
+                }
+            }
+            return result;
+        });
+    }
+
+    public ScrollPage findPage(ScrollOrder order, String cursor, int pageSize, Predicate<DigitalScroll> filter) {
+        ScrollCursor after = ScrollCursor.decode(cursor, order);
+        return read(() -> collectPage(catalogIndex.iterateIds(order, after), order, pageSize, filter));
+    }
+
+    public ScrollPage findPageContaining(ScrollField field,
+                                        String fragment,
+                                        String cursor,
+                                        int pageSize,
+                                        Predicate<DigitalScroll> filter) {
+        ScrollCursor after = ScrollCursor.decode(cursor, ScrollOrder.BY_ID);
+        return read(() -> {
+            Iterator<String> ids = trigramIndex.iterateCandidates(field, fragment, after == null ? null : after.getScrollId());
+            return collectPage(ids == null ? catalogIndex.iterateIds(ScrollOrder.BY_ID, after) : ids,
+                    ScrollOrder.BY_ID, pageSize, filter);
+        });
+    }
+
+    public ScrollPage findPageUploadedBetween(LocalDateTime fromInclusive,
+                                             LocalDateTime toExclusive,
+                                             String cursor,
+                                             int pageSize,
+                                             Predicate<DigitalScroll> filter) {
+        ScrollCursor after = ScrollCursor.decode(cursor, ScrollOrder.BY_UPLOAD_TIME);
+        return read(() -> collectPage(catalogIndex.iterateIdsUploadedBetween(fromInclusive, toExclusive, after),
+                ScrollOrder.BY_UPLOAD_TIME, pageSize, filter));
+    }
+
+    public int countUploadedBetween(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        return read(() -> catalogIndex.countUploadedBetween(fromInclusive, toExclusive));
+    }
+
+    public int estimateIdsContaining(ScrollField field, String fragment) {
+        return read(() -> trigramIndex.estimateCandidates(field, fragment));
+    }
+
+    public int size() {
+        return read(scrolls::size);
+    }
+
+    public Set<String> findIdsContaining(ScrollField field, String fragment) {
+        return read(() -> trigramIndex.findCandidates(field, fragment));
+    }
+
+    public void save(DigitalScroll scroll) {
+        write(() -> {
+            if (catalogIndex.isNameTaken(scroll.getName(), scroll.getScrollId())) {
+                throw new IllegalArgumentException("Scroll name must be unique.");
+            }
+            putScroll(scroll);
+            leaderboards.get(ScrollRanking.RECENTLY_UPDATED).put(scroll.getScrollId(), epochNanos(LocalDateTime.now()));
+            return List.of(ScrollWriteAheadLog.PUT + DELIMITER + formatScroll(scroll));
+        });
+    }
+
+    public void saveAll(Collection<DigitalScroll> batch) {
+        ScrollBatch operations = new ScrollBatch();
+        for (DigitalScroll scroll : batch) {
+            operations.save(scroll);
+        }
+        applyBatch(operations);
+    }
+
+    public void deleteAll(Collection<String> ids) {
+        ScrollBatch operations = new ScrollBatch();
+        for (String id : ids) {
+            operations.delete(id);
+        }
+        applyBatch(operations);
+    }
+
+    public void applyBatch(ScrollBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<String> deleted = new ArrayList<>();
+        write(() -> {
+            validateBatch(batch);
+            long now = epochNanos(LocalDateTime.now());
+            List<String> records = new ArrayList<>(batch.size());
+            for (ScrollBatch.Operation operation : batch.operations()) {
+                if (operation.isDelete()) {
+                    removeScroll(operation.scrollId());
+                    deleted.add(operation.scrollId());
+                    records.add(ScrollWriteAheadLog.DELETE + DELIMITER + safe(operation.scrollId()));
+                } else {
+                    putScroll(operation.scroll());
+                    leaderboards.get(ScrollRanking.RECENTLY_UPDATED).put(operation.scrollId(), now);
+                    records.add(ScrollWriteAheadLog.PUT + DELIMITER + formatScroll(operation.scroll()));
+                }
+            }
+            return records;
+        });
+        if (!deleted.isEmpty()) {
+            downloadCounters.forget(deleted);
+        }
+    }
+
+    public Optional<ScrollSnapshot> update(String id, long expectedVersion, UnaryOperator<ScrollSnapshot> mutator) {
+        ScrollSnapshot current = requireSnapshot(id);
+        if (current.version() != expectedVersion) {
+            return Optional.empty();
+        }
+        ScrollSnapshot next = mutator.apply(current);
+        ScrollSnapshot[] updated = new ScrollSnapshot[1];
+        write(() -> {
+            DigitalScroll scroll = scrolls.get(id);
+            if (scroll == null) {
+                throw new IllegalArgumentException("Scroll not found.");
+            }
+            if (snapshots.get(id).version() != expectedVersion) {
+                return List.of();
+            }
+            if (catalogIndex.isNameTaken(next.name(), id)) {
+                throw new IllegalArgumentException("Scroll name must be unique.");
+            }
+            DigitalScroll replacement = next.toScroll(scroll);
+            putScroll(replacement);
+            leaderboards.get(ScrollRanking.RECENTLY_UPDATED).put(id, epochNanos(LocalDateTime.now()));
+            updated[0] = snapshots.get(id);
+            return List.of(ScrollWriteAheadLog.PUT + DELIMITER + formatScroll(replacement));
+        });
+        return Optional.ofNullable(updated[0]);
+    }
+
+    public ScrollSnapshot update(String id, UnaryOperator<ScrollSnapshot> mutator) {
+        while (true) {
+            Optional<ScrollSnapshot> updated = update(id, requireSnapshot(id).version(), mutator);
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+        }
+    }
+
+    public void delete(String id) {
+        write(() -> {
+            removeScroll(id);
+            return List.of(ScrollWriteAheadLog.DELETE + DELIMITER + safe(id));
+        });
+        downloadCounters.forget(List.of(id));
+    }
+
+    public void recordDownload(DigitalScroll scroll) {
+        recordDownload(scroll, System.currentTimeMillis());
+    }
+
+    public void recordDownload(DigitalScroll scroll, long timestampMillis) {
+        downloadCounters.record(scroll, timestampMillis);
+        statisticsIndex.recordDownload(scroll.getScrollId());
+        rankDownloads(scroll);
+    }
+
+    public ScrollStatistics getStatistics() {
+        return statisticsIndex.global();
+    }
+
+    public ScrollStatistics getStatistics(String ownerUsername) {
+        return statisticsIndex.forOwner(ownerUsername);
+    }
+
+    public Map<String, ScrollStatistics> getStatisticsByOwner() {
+        return statisticsIndex.byOwner();
+    }
+
+    public List<DigitalScroll> findTop(ScrollRanking ranking, int limit) {
+        List<String> ids = leaderboards.get(ranking).top(limit);
+        return read(() -> {
+            List<DigitalScroll> result = new ArrayList<>();
+            for (String id : ids) {
+                DigitalScroll scroll = scrolls.get(id);
+                if (scroll != null) {
+                    result.add(scroll);
+                }
+            }
+            return result;
+        });
+    }
+
+    public List<ScrollDownloadTrend> findTopDownloaded(DownloadWindow window, int limit, long nowMillis) {
+        return downloadMetrics.top(window, limit, nowMillis);
+    }
+
+    public ScrollDownloadTrend getDownloadTrend(String id, DownloadWindow window, long nowMillis) {
+        return downloadMetrics.trend(id, window, nowMillis);
+    }
+
+    public void flushDownloadCounts() {
+        downloadCounters.flush();
+    }
+
+    public void close() {
+        downloadCounters.close();
+    }
+
+    void updateFilePaths(Map<String, String> filePathsById) {
+        write(() -> {
+            List<String> records = new ArrayList<>();
+            for (Map.Entry<String, String> entry : filePathsById.entrySet()) {
+                DigitalScroll scroll = scrolls.get(entry.getKey());
+                if (scroll != null) {
+                    DigitalScroll moved = snapshots.get(scroll.getScrollId()).withFilePath(entry.getValue()).toScroll(scroll);
+                    putScroll(moved);
+                    records.add(ScrollWriteAheadLog.PUT + DELIMITER + formatScroll(moved));
+                }
+            }
+            return records;
+        });
+    }
+
+    public void compact() {
+        commitLock.lock();
+        try {
+            persist();
+            writeAheadLog.truncate();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    public boolean isLogStructured() {
+        return compactionThreshold > 0;
+    }
+
+    public String generateId() {
+        return idAllocator.allocate();
+    }
+
+    private void validateBatch(ScrollBatch batch) {
+        Set<String> touchedIds = new HashSet<>();
+        Map<String, Boolean> presentById = new HashMap<>();
+        Map<String, String> finalNames = new HashMap<>();
+        Map<String, String> nameKeysById = new HashMap<>();
+        for (ScrollBatch.Operation operation : batch.operations()) {
+            touchedIds.add(operation.scrollId());
+            if (operation.isDelete()) {
+                if (!presentById.getOrDefault(operation.scrollId(), scrolls.containsKey(operation.scrollId()))) {
+                    throw new IllegalArgumentException("Scroll not found: " + operation.scrollId());
+                }
+            } else {
+                requireComplete(operation.scroll());
+            }
+            presentById.put(operation.scrollId(), !operation.isDelete());
+            String nameKey = operation.isDelete() ? null : catalogIndex.nameKey(operation.scroll().getName());
+            String previousKey = nameKeysById.remove(operation.scrollId());
+            if (previousKey != null) {
+                finalNames.remove(previousKey);
+            }
+            if (nameKey != null) {
+                nameKeysById.put(operation.scrollId(), nameKey);
+                String holder = finalNames.putIfAbsent(nameKey, operation.scrollId());
+                if (holder != null && !holder.equals(operation.scrollId())) {
+                    throw new IllegalArgumentException("Scroll name must be unique.");
+                }
+            }
+        }
+        for (Map.Entry<String, String> entry : finalNames.entrySet()) {
+            for (String holder : catalogIndex.findIdsByNameKey(entry.getKey())) {
+                if (!holder.equals(entry.getValue()) && !touchedIds.contains(holder)) {
+                    throw new IllegalArgumentException("Scroll name must be unique.");
+                }
+            }
+        }
     }
 
-    public synchronized String generateId() {
-        String id = String.format("SC%04d", nextId);
-        nextId++;
-        return id;
+    private void requireComplete(DigitalScroll scroll) {
+        if (scroll.getName() == null || scroll.getName().isBlank()) {
+            throw new IllegalArgumentException("Scroll name is required: " + scroll.getScrollId());
+        }
+        if (scroll.getOwnerUsername() == null || scroll.getFilePath() == null || scroll.getUploadTimestamp() == null) {
+            throw new IllegalArgumentException("Scroll is missing its owner, file or upload time: " + scroll.getScrollId());
+        }
+    }
+
+    private ScrollSnapshot requireSnapshot(String id) {
+        ScrollSnapshot current = findSnapshot(id);
+        if (current == null) {
+            throw new IllegalArgumentException("Scroll not found.");
+        }
+        return current;
+    }
+
+    private <T> T read(Supplier<T> query) {
+        stateLock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    private void write(Supplier<List<String>> mutation) {
+        commitLock.lock();
+        try {
+            List<String> records;
+            stateLock.writeLock().lock();
+            try {
+                records = mutation.get();
+                version++;
+            } finally {
+                stateLock.writeLock().unlock();
+            }
+            if (!records.isEmpty()) {
+                commit(records);
+            }
+        } finally {
+            commitLock.unlock();
+        }
     }
 
     private void loadFromFile() {
+        boolean migrateLegacy = binarySnapshot && !Files.exists(snapshotPath) && Files.exists(storagePath);
+        readSnapshot();
+        replayLog();
+        if (migrateLegacy) {
+            persist();
+        }
+    }
+
+    private void readSnapshot() {
+        if (Files.exists(snapshotPath)) {
+            for (DigitalScroll scroll : SnapshotReader.read(snapshotPath, this::decodeScroll)) {
+                putScroll(scroll);
+            }
+            return;
+        }
         if (!Files.exists(storagePath)) {
             return;
         }
@@ -58,80 +489,212 @@ public class DigitalScrollRepository {
                 if (line.trim().isEmpty()) {
                     continue;
                 }
-                String[] parts = line.split("\\|", -1);
-                if (parts.length < 4) {
-                    continue;
-                }
-                String id = parts[0];
-                String name = parts[1];
-                String owner = parts[2];
-                String filePath = parts[3];
-                LocalDateTime timestamp = LocalDateTime.now();
-                int uploadCount = 0;
-                int downloadCount = 0;
-                if (parts.length >= 5) {
-                    timestamp = parseTimestamp(parts[4]);
-                }
-                if (parts.length >= 6) {
-                    uploadCount = parseInt(parts[5]);
-                }
-                if (parts.length >= 7) {
-                    downloadCount = parseInt(parts[6]);
+                DigitalScroll scroll = parseScroll(line.split("\\|", -1), 0);
+                if (scroll != null) {
+                    putScroll(scroll);
                 }
-                DigitalScroll scroll = new DigitalScroll(id, name, owner, filePath, timestamp, uploadCount, downloadCount);
-                scrolls.put(id, scroll);
-                updateNextId(id);
             }
         } catch (IOException e) {
             throw new IllegalStateException("Failed to read scroll data: " + storagePath, e);
         }
     }
 
+    private void replayLog() {
+        List<String> records = writeAheadLog.readRecords();
+        if (records.isEmpty()) {
+            return;
+        }
+        for (String record : records) {
+            String[] parts = record.split("\\|", -1);
+            if (ScrollWriteAheadLog.PUT.equals(parts[0])) {
+                DigitalScroll scroll = parseScroll(parts, 1);
+                if (scroll != null) {
+                    putScroll(scroll);
+                }
+            } else if (ScrollWriteAheadLog.DELETE.equals(parts[0]) && parts.length >= 2) {
+                removeScroll(parts[1]);
+            }
+        }
+        if (!isLogStructured() || writeAheadLog.getRecordCount() >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    private ScrollPage collectPage(Iterator<String> ids, ScrollOrder order, int pageSize, Predicate<DigitalScroll> filter) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        List<DigitalScroll> items = new ArrayList<>();
+        while (ids.hasNext()) {
+            DigitalScroll scroll = scrolls.get(ids.next());
+            if (scroll == null || (filter != null && !filter.test(scroll))) {
+                continue;
+            }
+            if (items.size() == pageSize) {
+                return new ScrollPage(items, ScrollCursor.after(order, items.get(pageSize - 1)).encode());
+            }
+            items.add(scroll);
+        }
+        return new ScrollPage(items, null);
+    }
+
+    private void putScroll(DigitalScroll scroll) {
+        boolean added = scrolls.put(scroll.getScrollId(), scroll) == null;
+        idAllocator.observe(scroll.getScrollId());
+        ScrollSnapshot previous = snapshots.get(scroll.getScrollId());
+        snapshots.put(scroll.getScrollId(), ScrollSnapshot.of(scroll, previous == null ? 1 : previous.version() + 1));
+        catalogIndex.add(scroll);
+        trigramIndex.add(scroll);
+        statisticsIndex.put(scroll);
+        String id = scroll.getScrollId();
+        leaderboards.get(ScrollRanking.MOST_DOWNLOADED).put(id, scroll.getDownloadCount());
+        leaderboards.get(ScrollRanking.MOST_UPDATED).put(id, scroll.getUploadCount());
+        if (added && scroll.getUploadTimestamp() != null) {
+            leaderboards.get(ScrollRanking.RECENTLY_UPDATED).put(id, epochNanos(scroll.getUploadTimestamp()));
+        }
+    }
+
+    private void removeScroll(String id) {
+        scrolls.remove(id);
+        snapshots.remove(id);
+        catalogIndex.remove(id);
+        trigramIndex.remove(id);
+        statisticsIndex.remove(id);
+        for (ScrollLeaderboard leaderboard : leaderboards.values()) {
+            leaderboard.remove(id);
+        }
+    }
+
+    private void rankDownloads(DigitalScroll scroll) {
+        leaderboards.get(ScrollRanking.MOST_DOWNLOADED).rerank(scroll.getScrollId(), scroll::getDownloadCount);
+    }
+
+    private long epochNanos(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + timestamp.getNano();
+    }
+
+    private void commit(List<String> records) {
+        if (!isLogStructured()) {
+            persist();
+            return;
+        }
+        writeAheadLog.append(records);
+        if (writeAheadLog.getRecordCount() >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    private DigitalScroll parseScroll(String[] parts, int offset) {
+        if (parts.length - offset < 4) {
+            return null;
+        }
+        String id = parts[offset];
+        String name = parts[offset + 1];
+        String owner = parts[offset + 2];
+        String filePath = parts[offset + 3];
+        LocalDateTime timestamp = LocalDateTime.now();
+        int uploadCount = 0;
+        int downloadCount = 0;
+        if (parts.length - offset >= 5) {
+            timestamp = parseTimestamp(parts[offset + 4]);
+        }
+        if (parts.length - offset >= 6) {
+            uploadCount = parseInt(parts[offset + 5]);
+        }
+        if (parts.length - offset >= 7) {
+            downloadCount = parseInt(parts[offset + 6]);
+        }
+        DigitalScroll scroll = new DigitalScroll(id, name, owner, filePath, timestamp, uploadCount, downloadCount);
+        if (parts.length - offset >= 9 && !parts[offset + 8].isEmpty()) {
+            scroll.setContentFingerprint(parseLong(parts[offset + 7]), parts[offset + 8]);
+        }
+        return scroll;
+    }
+
+    private String formatScroll(DigitalScroll scroll) {
+        return String.join(DELIMITER,
+                safe(scroll.getScrollId()),
+                safe(scroll.getName()),
+                safe(scroll.getOwnerUsername()),
+                safe(scroll.getFilePath()),
+                safe(scroll.getUploadTimestamp().toString()),
+                Integer.toString(scroll.getUploadCount()),
+                Integer.toString(scroll.getDownloadCount()),
+                Long.toString(scroll.getContentSize()),
+                safe(scroll.getContentHash()));
+    }
+
+    private DigitalScroll decodeScroll(SnapshotReader.Record record) {
+        DigitalScroll scroll = new DigitalScroll(record.getString(0),
+                record.getString(1),
+                record.getString(2),
+                record.getString(3),
+                record.getTimestamp(4, 9),
+                record.getInt(5),
+                record.getInt(6));
+        if (record.getFieldCount() >= FINGERPRINT_FIELDS && record.getString(8) != null) {
+            scroll.setContentFingerprint(record.getLong(7), record.getString(8));
+        }
+        return scroll;
+    }
+
     private void persist() {
+        if (binarySnapshot) {
+            persistBinary();
+        } else {
+            persistText();
+        }
+    }
+
+    private void persistBinary() {
+        SnapshotWriter writer = new SnapshotWriter(SNAPSHOT_FIELDS);
+        for (DigitalScroll scroll : scrolls.values()) {
+            writer.addRecord(writer.string(scroll.getScrollId()),
+                    writer.string(scroll.getName()),
+                    writer.string(scroll.getOwnerUsername()),
+                    writer.string(scroll.getFilePath()),
+                    writer.timestampSeconds(scroll.getUploadTimestamp()),
+                    scroll.getUploadCount(),
+                    scroll.getDownloadCount(),
+                    scroll.getContentSize(),
+                    writer.string(scroll.getContentHash()),
+                    writer.timestampNanos(scroll.getUploadTimestamp()));
+        }
+        writer.writeTo(snapshotPath);
+        deleteQuietly(storagePath);
+    }
+
+    private void persistText() {
         try {
             Path parent = storagePath.getParent();
             if (parent != null) {
                 Files.createDirectories(parent);
             }
-            try (BufferedWriter writer = Files.newBufferedWriter(storagePath, StandardCharsets.UTF_8)) {
+            Path tempPath = Path.of(storagePath.toString() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
                 for (DigitalScroll scroll : scrolls.values()) {
-                    writer.write(String.join(DELIMITER,
-                            safe(scroll.getScrollId()),
-                            safe(scroll.getName()),
-                            safe(scroll.getOwnerUsername()),
-                            safe(scroll.getFilePath()),
-                            safe(scroll.getUploadTimestamp().toString()),
-                            Integer.toString(scroll.getUploadCount()),
-                            Integer.toString(scroll.getDownloadCount())));
+                    writer.write(formatScroll(scroll));
                     writer.newLine();
                 }
             }
+            Files.move(tempPath, storagePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to save scroll data: " + storagePath, e);
         }
+        deleteQuietly(snapshotPath);
     }
 
-    private String safe(String value) {
-        return value == null ? "" : value;
-    }
-
-    private void updateNextId(String id) {
-        if (id == null) {
-            return;
-        }
-        String numeric = id.replaceAll("[^0-9]", "");
-        if (numeric.isEmpty()) {
-            return;
-        }
+    private void deleteQuietly(Path path) {
         try {
-            int value = Integer.parseInt(numeric);
-            if (value >= nextId) {
-                nextId = value + 1;
-            }
-        } catch (NumberFormatException ignored) {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
         }
     }
 
+    private String safe(String value) {
+        return value == null ? "" : value;
+    }
+
     private LocalDateTime parseTimestamp(String raw) {
         try {
             return LocalDateTime.parse(raw);
@@ -147,4 +710,15 @@ public class DigitalScrollRepository {
             return 0;
         }
     }
+
+    private long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private record CatalogView(long version, List<DigitalScroll> scrolls) {
+    }
 }
@@ -1,73 +1,255 @@
 package org.example.digital_scroll_management;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import org.example.storage.ShardedLayout;
 
 public class DigitalScrollService {
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String HISTORY_DIRECTORY = "history";
+    private static final String JOURNAL_DIRECTORY = "journal";
+
     private final DigitalScrollRepository repository;
     private final Path uploadDirectory;
+    private final ScrollTransferEngine transferEngine;
+    private final ScrollBlobStore blobStore;
+    private final ScrollDeltaEngine deltaEngine;
+    private final ScrollHistoryStore historyStore;
+    private final ScrollStorageCodec storageCodec;
+    private final ShardedLayout layout;
 
     public DigitalScrollService(DigitalScrollRepository repository, Path uploadDirectory) {
+        this(repository, uploadDirectory, new ScrollServiceOptions());
+    }
+
+    public DigitalScrollService(DigitalScrollRepository repository, Path uploadDirectory, ScrollServiceOptions options) {
         this.repository = repository;
         this.uploadDirectory = uploadDirectory;
+        this.transferEngine = options.getTransferEngine();
+        this.deltaEngine = new ScrollDeltaEngine(transferEngine, uploadDirectory.resolve(JOURNAL_DIRECTORY));
+        this.storageCodec = options.isCompressingUploads() ? new ScrollStorageCodec() : null;
+        this.layout = options.getLayout();
         try {
             Files.createDirectories(uploadDirectory);
         } catch (IOException e) {
             throw new IllegalStateException("Unable to create upload directory: " + uploadDirectory, e);
         }
+        try {
+            deltaEngine.recoverInterruptedRewrites();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to roll back interrupted scroll rewrites in " + uploadDirectory, e);
+        }
+        this.historyStore = options.getRetainedVersions() > 0
+                ? new ScrollHistoryStore(uploadDirectory.resolve(HISTORY_DIRECTORY), options.getRetainedVersions(),
+                        options.getHistoryDeltaLimit())
+                : null;
+        this.blobStore = options.isDeduplicatingUploads()
+                ? new ScrollBlobStore(uploadDirectory.resolve(BLOB_DIRECTORY), transferEngine, storageCodec, layout)
+                : null;
+        if (blobStore != null) {
+            for (DigitalScroll scroll : repository.getAll()) {
+                blobStore.register(scroll.getFilePath());
+            }
+        }
+    }
+
+    public boolean isDeduplicatingUploads() {
+        return blobStore != null;
     }
 
     public List<DigitalScroll> listAllScrolls() {
         return repository.getAll();
     }
 
+    public List<DigitalScroll> listScrolls(ScrollOrder order, Predicate<DigitalScroll> filter) {
+        return repository.findAll(order, filter);
+    }
+
+    public ScrollPage listScrollsPage(ScrollOrder order, String cursor, int pageSize) {
+        return repository.findPage(order, cursor, pageSize, null);
+    }
+
+    public ScrollPage listScrollsPage(ScrollOrder order, String cursor, int pageSize, Predicate<DigitalScroll> filter) {
+        return repository.findPage(order, cursor, pageSize, filter);
+    }
+
+    public ScrollPage pageOfScrollsContaining(ScrollField field,
+                                              String fragment,
+                                              String cursor,
+                                              int pageSize,
+                                              Predicate<DigitalScroll> filter) {
+        return repository.findPageContaining(field, fragment, cursor, pageSize, filter);
+    }
+
+    public ScrollPage pageOfScrollsUploadedBetween(LocalDate fromDate,
+                                                   LocalDate toDate,
+                                                   String cursor,
+                                                   int pageSize,
+                                                   Predicate<DigitalScroll> filter) {
+        return repository.findPageUploadedBetween(startOf(fromDate), endOf(toDate), cursor, pageSize, filter);
+    }
+
     public List<DigitalScroll> listScrollsByOwner(String ownerUsername) {
-        List<DigitalScroll> result = new ArrayList<>();
-        for (DigitalScroll scroll : repository.getAll()) {
-            if (scroll.getOwnerUsername().equals(ownerUsername)) {
-                result.add(scroll);
-            }
+        return repository.findByOwner(ownerUsername);
+    }
+
+    public Set<String> findScrollIdsContaining(ScrollField field, String fragment) {
+        return repository.findIdsContaining(field, fragment);
+    }
+
+    public int countScrolls() {
+        return repository.size();
+    }
+
+    public int estimateScrollsContaining(ScrollField field, String fragment) {
+        return repository.estimateIdsContaining(field, fragment);
+    }
+
+    public List<String> findScrollIdsUploadedBetween(LocalDate fromDate, LocalDate toDate) {
+        return repository.findIdsUploadedBetween(startOf(fromDate), endOf(toDate));
+    }
+
+    public int countScrollsUploadedBetween(LocalDate fromDate, LocalDate toDate) {
+        return repository.countUploadedBetween(startOf(fromDate), endOf(toDate));
+    }
+
+    public ScrollTransferEngine getTransferEngine() {
+        return transferEngine;
+    }
+
+    public ShardedLayout getLayout() {
+        return layout;
+    }
+
+    public int migrateStorageLayout(int parallelism, int batchSize) {
+        return new ScrollLayoutMigrator(repository, blobStore, this::layoutPath, parallelism, batchSize).migrate();
+    }
+
+    public boolean isCompressingUploads() {
+        return storageCodec != null;
+    }
+
+    public InputStream openScrollContent(DigitalScroll scroll) throws IOException {
+        return ScrollStorageCodec.open(Path.of(scroll.getFilePath()));
+    }
+
+    public long getScrollContentSize(DigitalScroll scroll) throws IOException {
+        return ScrollStorageCodec.contentSize(Path.of(scroll.getFilePath()));
+    }
+
+    public void exportScroll(DigitalScroll scroll,
+                             Path targetFile,
+                             ScrollTransferEngine.ProgressListener listener,
+                             BooleanSupplier cancelRequested) throws IOException {
+        Path stored = Path.of(scroll.getFilePath());
+        if (ScrollStorageCodec.isCompressed(stored)) {
+            ScrollStorageCodec.decode(stored, targetFile, listener, cancelRequested);
+        } else {
+            transferEngine.transfer(stored, targetFile, listener, cancelRequested);
         }
-        return result;
     }
 
     public DigitalScroll addScroll(String ownerUsername, String name, String sourceFilePath) {
+        return addScroll(ownerUsername, name, sourceFilePath, null, null);
+    }
+
+    public DigitalScroll addScroll(String ownerUsername,
+                                   String name,
+                                   String sourceFilePath,
+                                   ScrollTransferEngine.ProgressListener listener,
+                                   BooleanSupplier cancelRequested) {
         String safeName = requireValue(name, "Scroll name");
         ensureUniqueName(safeName, null);
         Path source = checkReadableFile(sourceFilePath);
+        ScrollFingerprint fingerprint = fingerprint(source);
         String scrollId = repository.generateId();
-        Path target = buildTargetPath(scrollId, safeName, source);
-        copyFile(source, target);
+        Path target = storeFile(source, fingerprint, buildTargetPath(scrollId, safeName, source), listener, cancelRequested);
+        if (blobStore == null && !ScrollStorageCodec.isCompressed(target)) {
+            writeSignatureQuietly(target, fingerprint);
+        }
         DigitalScroll scroll = new DigitalScroll(scrollId, safeName, ownerUsername, target.toString(), LocalDateTime.now(), 1, 0);
-        repository.save(scroll);
+        scroll.setContentFingerprint(fingerprint.getSize(), fingerprint.getHash());
+        try {
+            repository.save(scroll);
+        } catch (IllegalArgumentException e) {
+            releaseFile(target.toString());
+            throw e;
+        }
         return scroll;
     }
 
-    public void updateScroll(String ownerUsername,
-                             String scrollId,
-                             String newName,
-                             String newSourceFilePath) {
+    public DigitalScroll updateScroll(String ownerUsername,
+                                      String scrollId,
+                                      String newName,
+                                      String newSourceFilePath) {
         DigitalScroll scroll = requireOwnedScroll(ownerUsername, scrollId);
-        boolean fileReplaced = false;
-        if (newName != null && !newName.trim().isEmpty()) {
-            String safeName = newName.trim();
-            ensureUniqueName(safeName, scrollId);
-            scroll.setName(safeName);
-        }
-        if (newSourceFilePath != null && !newSourceFilePath.trim().isEmpty()) {
-            Path source = checkReadableFile(newSourceFilePath);
-            Path target = Path.of(scroll.getFilePath());
-            copyFile(source, target);
-            fileReplaced = true;
+        String id = scroll.getScrollId();
+        String safeName = newName == null || newName.trim().isEmpty() ? null : newName.trim();
+        if (safeName != null) {
+            ensureUniqueName(safeName, id);
         }
+        if (newSourceFilePath == null || newSourceFilePath.trim().isEmpty()) {
+            if (safeName != null) {
+                repository.update(id, current -> current.withName(safeName));
+            }
+            return repository.findById(id);
+        }
+        Path source = checkReadableFile(newSourceFilePath);
+        ScrollFingerprint fingerprint = fingerprint(source);
+        String previousFilePath = scroll.getFilePath();
+        int previousVersion = scroll.getUploadCount();
+        long previousSize = currentSize(scroll);
+        String filePath = previousFilePath;
+        Path pendingVersion = null;
+        boolean fileReplaced = !hasSameContent(scroll, fingerprint);
         if (fileReplaced) {
-            scroll.incrementUploadCount();
+            pendingVersion = prepareVersion(id, Path.of(previousFilePath), source);
+            try {
+                filePath = (blobStore == null
+                        ? replaceFile(source, fingerprint, Path.of(previousFilePath), scroll.getContentHash())
+                        : storeFile(source, fingerprint, Path.of(previousFilePath), null, null)).toString();
+            } catch (RuntimeException e) {
+                deleteQuietly(pendingVersion);
+                throw e;
+            }
         }
-        repository.save(scroll);
+        String storedPath = filePath;
+        try {
+            repository.update(id, current -> {
+                ScrollSnapshot next = current.withFilePath(storedPath)
+                        .withContentFingerprint(fingerprint.getSize(), fingerprint.getHash());
+                if (safeName != null) {
+                    next = next.withName(safeName);
+                }
+                return fileReplaced ? next.withUploadCount(current.uploadCount() + 1) : next;
+            });
+        } catch (IllegalArgumentException e) {
+            if (fileReplaced && blobStore != null) {
+                releaseFile(storedPath);
+            }
+            deleteQuietly(pendingVersion);
+            throw e;
+        }
+        if (pendingVersion != null) {
+            commitVersion(id, previousVersion, previousSize, pendingVersion);
+        }
+        if (fileReplaced && blobStore != null) {
+            releaseFile(previousFilePath);
+        }
+        return repository.findById(id);
     }
 
     public DigitalScroll getScroll(String scrollId) {
@@ -79,32 +261,110 @@ public class DigitalScrollService {
 
     public void removeScroll(String ownerUsername, String scrollId) {
         DigitalScroll scroll = requireOwnedScroll(ownerUsername, scrollId);
-        Path filePath = Path.of(scroll.getFilePath());
+        releaseFile(scroll.getFilePath());
+        repository.delete(scroll.getScrollId());
+        if (historyStore != null) {
+            historyStore.delete(scroll.getScrollId());
+        }
+    }
+
+    public void removeScrolls(String ownerUsername, Collection<String> scrollIds) {
+        Map<String, DigitalScroll> targets = new LinkedHashMap<>();
+        for (String scrollId : scrollIds) {
+            DigitalScroll scroll = requireOwnedScroll(ownerUsername, scrollId);
+            targets.put(scroll.getScrollId(), scroll);
+        }
+        repository.deleteAll(targets.keySet());
+        for (DigitalScroll scroll : targets.values()) {
+            releaseFile(scroll.getFilePath());
+            if (historyStore != null) {
+                historyStore.delete(scroll.getScrollId());
+            }
+        }
+    }
+
+    public List<ScrollVersion> listScrollVersions(String scrollId) {
+        DigitalScroll scroll = requireScroll(scrollId);
+        List<ScrollVersion> versions = new ArrayList<>();
+        versions.add(new ScrollVersion(scroll.getUploadCount(), currentSize(scroll), null));
+        if (historyStore != null) {
+            try {
+                versions.addAll(historyStore.list(scroll.getScrollId()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read history of scroll " + scroll.getScrollId(), e);
+            }
+        }
+        return versions;
+    }
+
+    public DigitalScroll restoreScrollVersion(String ownerUsername, String scrollId, int version) {
+        DigitalScroll scroll = requireOwnedScroll(ownerUsername, scrollId);
+        if (version == scroll.getUploadCount()) {
+            return scroll;
+        }
+        if (historyStore == null) {
+            throw new IllegalArgumentException("Scroll version not found.");
+        }
+        Path restored = null;
         try {
-            Files.deleteIfExists(filePath);
-        } catch (IOException ignored) {
+            restored = Files.createTempFile(uploadDirectory, "restore", ".tmp");
+            Path decoded = decodedCopy(Path.of(scroll.getFilePath()));
+            try {
+                historyStore.reconstruct(scroll.getScrollId(), version,
+                        decoded != null ? decoded : Path.of(scroll.getFilePath()), restored);
+            } finally {
+                deleteQuietly(decoded);
+            }
+            return updateScroll(ownerUsername, scroll.getScrollId(), null, restored.toString());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to restore scroll " + scroll.getScrollId(), e);
+        } finally {
+            if (restored != null) {
+                deleteQuietly(restored);
+            }
         }
-        repository.delete(scrollId);
     }
 
     public void recordDownload(DigitalScroll scroll) {
-        scroll.incrementDownloadCount();
-        repository.save(scroll);
+        repository.recordDownload(scroll);
     }
 
-    public List<String> getScrollStatistics() {
-        List<String> stats = new ArrayList<>();
-        for (DigitalScroll scroll : repository.getAll()) {
-            stats.add(String.format("id=%s name=%s uploads=%d downloads=%d",
-                    scroll.getScrollId(),
-                    scroll.getName(),
-                    scroll.getUploadCount(),
-                    scroll.getDownloadCount()));
+    public List<DigitalScroll> topScrolls(ScrollRanking ranking, int limit) {
+        if (ranking == null) {
+            throw new IllegalArgumentException("Ranking is required.");
         }
-        return stats;
+        return repository.findTop(ranking, limit);
     }
 
-    private DigitalScroll requireOwnedScroll(String ownerUsername, String scrollId) {
+    public List<ScrollDownloadTrend> topDownloadedScrolls(DownloadWindow window, int limit) {
+        return repository.findTopDownloaded(window, limit, System.currentTimeMillis());
+    }
+
+    public ScrollDownloadTrend getDownloadTrend(String scrollId, DownloadWindow window) {
+        return repository.getDownloadTrend(requireScroll(scrollId).getScrollId(), window, System.currentTimeMillis());
+    }
+
+    public ScrollStatistics getCatalogStatistics() {
+        return repository.getStatistics();
+    }
+
+    public ScrollStatistics getOwnerStatistics(String ownerUsername) {
+        return repository.getStatistics(ownerUsername);
+    }
+
+    public Map<String, ScrollStatistics> getStatisticsByOwner() {
+        return repository.getStatisticsByOwner();
+    }
+
+    private LocalDateTime startOf(LocalDate date) {
+        return date == null ? null : date.atStartOfDay();
+    }
+
+    private LocalDateTime endOf(LocalDate date) {
+        return date == null ? null : date.plusDays(1).atStartOfDay();
+    }
+
+    private DigitalScroll requireScroll(String scrollId) {
         if (scrollId == null || scrollId.trim().isEmpty()) {
             throw new IllegalArgumentException("Scroll ID is required.");
         }
@@ -112,6 +372,11 @@ public class DigitalScrollService {
         if (scroll == null) {
             throw new IllegalArgumentException("Scroll not found.");
         }
+        return scroll;
+    }
+
+    private DigitalScroll requireOwnedScroll(String ownerUsername, String scrollId) {
+        DigitalScroll scroll = requireScroll(scrollId);
         if (!scroll.getOwnerUsername().equals(ownerUsername)) {
             throw new IllegalArgumentException("You can only modify your own scrolls.");
         }
@@ -119,12 +384,9 @@ public class DigitalScrollService {
     }
 
     private void ensureUniqueName(String name, String ignoreScrollId) {
-        for (DigitalScroll existing : repository.getAll()) {
-            if (existing.getName().equalsIgnoreCase(name)) {
-                if (ignoreScrollId == null || !existing.getScrollId().equals(ignoreScrollId)) {
-                    throw new IllegalArgumentException("Scroll name must be unique.");
-                }
-            }
+        DigitalScroll existing = repository.findByName(name);
+        if (existing != null && !existing.getScrollId().equals(ignoreScrollId)) {
+            throw new IllegalArgumentException("Scroll name must be unique.");
         }
     }
 
@@ -141,9 +403,20 @@ public class DigitalScrollService {
 
     private Path buildTargetPath(String scrollId, String name, Path source) {
         String cleanName = name.replaceAll("[^a-zA-Z0-9_\\-]", "_");
-        String extension = extractExtension(source.getFileName().toString());
+        String extension = ScrollStorageCodec.escapeExtension(extractExtension(source.getFileName().toString()));
         String filename = scrollId + "_" + cleanName + extension;
-        return uploadDirectory.resolve(filename);
+        return layout.resolveHashed(uploadDirectory, scrollId, filename);
+    }
+
+    private Path layoutPath(DigitalScroll scroll) {
+        if (blobStore != null && blobStore.isBlob(scroll.getFilePath())) {
+            return blobStore.layoutPath(scroll.getFilePath());
+        }
+        Path current = Path.of(scroll.getFilePath());
+        if (!current.toAbsolutePath().normalize().startsWith(uploadDirectory.toAbsolutePath().normalize())) {
+            return current;
+        }
+        return layout.resolveHashed(uploadDirectory, scroll.getScrollId(), current.getFileName().toString());
     }
 
     private String extractExtension(String filename) {
@@ -154,13 +427,179 @@ public class DigitalScrollService {
         return "";
     }
 
-    private void copyFile(Path source, Path target) {
+    private void copyFile(Path source,
+                          Path target,
+                          ScrollTransferEngine.ProgressListener listener,
+                          BooleanSupplier cancelRequested) {
+        try {
+            transferEngine.transfer(source, target, listener, cancelRequested);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to copy file to " + target, e);
+        }
+    }
+
+    private ScrollFingerprint fingerprint(Path source) {
+        try {
+            return ScrollFingerprint.of(source);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read file " + source, e);
+        }
+    }
+
+    private boolean hasSameContent(DigitalScroll scroll, ScrollFingerprint fingerprint) {
+        if (scroll.getContentHash() != null) {
+            return fingerprint.matches(scroll);
+        }
+        Path stored = Path.of(scroll.getFilePath());
+        if (ScrollStorageCodec.isCompressed(stored)) {
+            return false;
+        }
+        try {
+            if (!Files.isRegularFile(stored) || Files.size(stored) != fingerprint.getSize()) {
+                return false;
+            }
+            return ScrollFingerprint.of(stored).getHash().equals(fingerprint.getHash());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path storeFile(Path source,
+                           ScrollFingerprint fingerprint,
+                           Path target,
+                           ScrollTransferEngine.ProgressListener listener,
+                           BooleanSupplier cancelRequested) {
+        if (blobStore == null) {
+            if (shouldCompress(source)) {
+                Path compressed = ScrollStorageCodec.compressedPath(target);
+                try {
+                    storageCodec.encode(source, compressed, listener, cancelRequested);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to copy file to " + compressed, e);
+                }
+                return compressed;
+            }
+            copyFile(source, target, listener, cancelRequested);
+            return target;
+        }
+        try {
+            return blobStore.store(source, fingerprint.getHash(), listener, cancelRequested);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to store file " + source, e);
+        }
+    }
+
+    private Path prepareVersion(String scrollId, Path previous, Path replacement) {
+        if (historyStore == null || !Files.isRegularFile(previous)) {
+            return null;
+        }
+        Path decoded = null;
+        try {
+            decoded = decodedCopy(previous);
+            return historyStore.prepare(scrollId, decoded != null ? decoded : previous, replacement);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to archive previous version of scroll " + scrollId, e);
+        } finally {
+            deleteQuietly(decoded);
+        }
+    }
+
+    private void commitVersion(String scrollId, int version, long size, Path pendingVersion) {
+        try {
+            historyStore.commit(scrollId, version, size, pendingVersion, LocalDateTime.now());
+        } catch (IOException e) {
+            deleteQuietly(pendingVersion);
+            throw new IllegalStateException("Failed to record history of scroll " + scrollId, e);
+        }
+    }
+
+    private long currentSize(DigitalScroll scroll) {
+        if (scroll.getContentSize() >= 0) {
+            return scroll.getContentSize();
+        }
         try {
-            Files.createDirectories(target.getParent());
-            Files.copy(source, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            return ScrollStorageCodec.contentSize(Path.of(scroll.getFilePath()));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private Path replaceFile(Path source, ScrollFingerprint fingerprint, Path previous, String previousContentHash) {
+        boolean compress = shouldCompress(source);
+        boolean wasCompressed = ScrollStorageCodec.isCompressed(previous);
+        Path raw = wasCompressed ? ScrollStorageCodec.rawPath(previous) : previous;
+        Path target = compress ? ScrollStorageCodec.compressedPath(raw) : raw;
+        try {
+            if (compress) {
+                storageCodec.encode(source, target, null, null);
+            } else if (wasCompressed) {
+                transferEngine.transfer(source, target);
+                deltaEngine.writeSignature(target, fingerprint);
+            } else {
+                deltaEngine.update(source, fingerprint, target, previousContentHash);
+            }
         } catch (IOException e) {
             throw new IllegalStateException("Failed to copy file to " + target, e);
         }
+        if (!target.equals(previous)) {
+            deleteQuietly(previous);
+            deltaEngine.deleteSignature(previous);
+        }
+        return target;
+    }
+
+    private boolean shouldCompress(Path source) {
+        if (storageCodec == null) {
+            return false;
+        }
+        try {
+            return storageCodec.isWorthCompressing(source);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path decodedCopy(Path stored) throws IOException {
+        if (!ScrollStorageCodec.isCompressed(stored)) {
+            return null;
+        }
+        Path decoded = Files.createTempFile(uploadDirectory, "decode", ".tmp");
+        try {
+            ScrollStorageCodec.decode(stored, decoded, null, null);
+            return decoded;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(decoded);
+            throw e;
+        }
+    }
+
+    private void writeSignatureQuietly(Path target, ScrollFingerprint fingerprint) {
+        try {
+            deltaEngine.writeSignature(target, fingerprint);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void releaseFile(String filePath) {
+        if (blobStore == null || !blobStore.isBlob(filePath)) {
+            deleteQuietly(Path.of(filePath));
+            deltaEngine.deleteSignature(Path.of(filePath));
+            return;
+        }
+        try {
+            blobStore.release(filePath);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
     }
 
     private String requireValue(String value, String fieldName) {
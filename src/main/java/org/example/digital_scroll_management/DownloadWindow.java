@@ -0,0 +1,23 @@
+package org.example.digital_scroll_management;
+
+public enum DownloadWindow {
+    LAST_HOUR(60, 60_000L),
+    LAST_DAY(24, 3_600_000L),
+    LAST_MONTH(30, 86_400_000L);
+
+    private final int bucketCount;
+    private final long bucketMillis;
+
+    DownloadWindow(int bucketCount, long bucketMillis) {
+        this.bucketCount = bucketCount;
+        this.bucketMillis = bucketMillis;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+}
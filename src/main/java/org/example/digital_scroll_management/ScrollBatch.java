@@ -0,0 +1,43 @@
+package org.example.digital_scroll_management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ScrollBatch {
+    private final List<Operation> operations = new ArrayList<>();
+
+    public ScrollBatch save(DigitalScroll scroll) {
+        if (scroll == null || scroll.getScrollId() == null) {
+            throw new IllegalArgumentException("Scroll ID is required.");
+        }
+        operations.add(new Operation(scroll, scroll.getScrollId()));
+        return this;
+    }
+
+    public ScrollBatch delete(String scrollId) {
+        if (scrollId == null) {
+            throw new IllegalArgumentException("Scroll ID is required.");
+        }
+        operations.add(new Operation(null, scrollId));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    List<Operation> operations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    record Operation(DigitalScroll scroll, String scrollId) {
+        boolean isDelete() {
+            return scroll == null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.digital_scroll_management;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import org.example.storage.ShardedLayout;
+
+class ScrollBlobStore {
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path blobDirectory;
+    private final ScrollTransferEngine transferEngine;
+    private final ScrollStorageCodec storageCodec;
+    private final ShardedLayout layout;
+    private final Map<Path, Integer> referenceCounts = new HashMap<>();
+    private final Object[] hashLocks = new Object[LOCK_STRIPES];
+
+    ScrollBlobStore(Path blobDirectory,
+                    ScrollTransferEngine transferEngine,
+                    ScrollStorageCodec storageCodec,
+                    ShardedLayout layout) {
+        this.blobDirectory = blobDirectory.toAbsolutePath().normalize();
+        this.transferEngine = transferEngine;
+        this.storageCodec = storageCodec;
+        this.layout = layout;
+        for (int i = 0; i < hashLocks.length; i++) {
+            hashLocks[i] = new Object();
+        }
+    }
+
+    boolean isBlob(String filePath) {
+        return filePath != null && blobPath(filePath).startsWith(blobDirectory);
+    }
+
+    Path layoutPath(String filePath) {
+        Path blob = blobPath(filePath);
+        String hash = ScrollStorageCodec.rawPath(blob).getFileName().toString();
+        return layout.resolve(blobDirectory, hash, blob.getFileName().toString());
+    }
+
+    boolean moveReference(String filePath, Path target) throws IOException {
+        Path blob = blobPath(filePath);
+        synchronized (lockFor(blob)) {
+            synchronized (this) {
+                referenceCounts.merge(target.toAbsolutePath().normalize(), 1, Integer::sum);
+                int remaining = referenceCounts.getOrDefault(blob, 0) - 1;
+                if (remaining > 0) {
+                    referenceCounts.put(blob, remaining);
+                    return false;
+                }
+                referenceCounts.remove(blob);
+            }
+            Files.deleteIfExists(blob);
+            return true;
+        }
+    }
+
+    synchronized void register(String filePath) {
+        if (isBlob(filePath)) {
+            referenceCounts.merge(blobPath(filePath), 1, Integer::sum);
+        }
+    }
+
+    synchronized int referenceCount(String filePath) {
+        return isBlob(filePath) ? referenceCounts.getOrDefault(blobPath(filePath), 0) : 0;
+    }
+
+    Path store(Path source,
+               String contentHash,
+               ScrollTransferEngine.ProgressListener listener,
+               BooleanSupplier cancelRequested) throws IOException {
+        Path raw = layout.resolve(blobDirectory, contentHash, contentHash);
+        Path compressed = ScrollStorageCodec.compressedPath(raw);
+        synchronized (lockFor(raw)) {
+            Path target = Files.exists(compressed) ? compressed : raw;
+            if (!Files.exists(target)) {
+                if (storageCodec != null && storageCodec.isWorthCompressing(source)) {
+                    target = compressed;
+                    storageCodec.encode(source, target, listener, cancelRequested);
+                } else {
+                    transferEngine.transfer(source, target, listener, cancelRequested);
+                }
+            } else if (listener != null) {
+                long size = Files.size(source);
+                listener.onProgress(size, size);
+            }
+            synchronized (this) {
+                referenceCounts.merge(target, 1, Integer::sum);
+            }
+            return target;
+        }
+    }
+
+    void release(String filePath) throws IOException {
+        if (!isBlob(filePath)) {
+            return;
+        }
+        Path blob = blobPath(filePath);
+        synchronized (lockFor(blob)) {
+            synchronized (this) {
+                int remaining = referenceCounts.getOrDefault(blob, 0) - 1;
+                if (remaining > 0) {
+                    referenceCounts.put(blob, remaining);
+                    return;
+                }
+                referenceCounts.remove(blob);
+            }
+            Files.deleteIfExists(blob);
+        }
+    }
+
+    private Object lockFor(Path blob) {
+        String hash = ScrollStorageCodec.rawPath(blob).getFileName().toString();
+        return hashLocks[Math.floorMod(hash.hashCode(), hashLocks.length)];
+    }
+
+    private Path blobPath(String filePath) {
+        return Path.of(filePath).toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.digital_scroll_management;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+class ScrollCatalogIndex {
+    private final Map<String, Set<String>> scrollIdsByName = new HashMap<>();
+    private final Map<String, Set<String>> scrollIdsByOwner = new HashMap<>();
+    private final NavigableMap<LocalDateTime, NavigableSet<String>> scrollIdsByUploadTime = new TreeMap<>();
+    private final NavigableSet<String> sortedIds = new TreeSet<>();
+    private final Map<String, IndexedFields> indexedFieldsById = new HashMap<>();
+
+    String findIdByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        Set<String> holders = scrollIdsByName.get(normalize(name));
+        return holders == null ? null : holders.iterator().next();
+    }
+
+    Set<String> findIdsByNameKey(String nameKey) {
+        Set<String> holders = scrollIdsByName.get(nameKey);
+        return holders == null ? Collections.emptySet() : holders;
+    }
+
+    Set<String> findIdsByOwner(String ownerUsername) {
+        Set<String> ids = scrollIdsByOwner.get(ownerUsername);
+        return ids == null ? Collections.emptySet() : ids;
+    }
+
+    List<String> findIdsUploadedBetween(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        List<String> result = new ArrayList<>();
+        for (Set<String> ids : uploadTimeRange(fromInclusive, toExclusive).values()) {
+            result.addAll(ids);
+        }
+        return result;
+    }
+
+    Iterator<String> iterateIds(ScrollOrder order, ScrollCursor after) {
+        if (order == ScrollOrder.BY_ID) {
+            return (after == null ? sortedIds : sortedIds.tailSet(after.getScrollId(), false)).iterator();
+        }
+        return iterateUploadTimes(scrollIdsByUploadTime, after);
+    }
+
+    Iterator<String> iterateIdsUploadedBetween(LocalDateTime fromInclusive, LocalDateTime toExclusive, ScrollCursor after) {
+        return iterateUploadTimes(uploadTimeRange(fromInclusive, toExclusive), after);
+    }
+
+    int countUploadedBetween(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        int count = 0;
+        for (Set<String> ids : uploadTimeRange(fromInclusive, toExclusive).values()) {
+            count += ids.size();
+        }
+        return count;
+    }
+
+    String nameKey(String name) {
+        return name == null ? null : normalize(name);
+    }
+
+    boolean isNameTaken(String name, String scrollId) {
+        if (name == null) {
+            return false;
+        }
+        for (String holderId : findIdsByNameKey(normalize(name))) {
+            if (!holderId.equals(scrollId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void add(DigitalScroll scroll) {
+        String scrollId = scroll.getScrollId();
+        IndexedFields previous = indexedFieldsById.get(scrollId);
+        String nameKey = scroll.getName() == null ? null : normalize(scroll.getName());
+        String owner = scroll.getOwnerUsername();
+        if (previous != null && !Objects.equals(previous.nameKey(), nameKey)) {
+            removeName(previous.nameKey(), scrollId);
+        }
+        if (nameKey != null) {
+            scrollIdsByName.computeIfAbsent(nameKey, key -> new LinkedHashSet<>()).add(scrollId);
+        }
+        if (previous != null && !Objects.equals(previous.owner(), owner)) {
+            removeOwner(previous.owner(), scrollId);
+        }
+        scrollIdsByOwner.computeIfAbsent(owner, key -> new LinkedHashSet<>()).add(scrollId);
+        LocalDateTime uploaded = scroll.getUploadTimestamp();
+        if (previous != null && !Objects.equals(previous.uploaded(), uploaded)) {
+            removeUploadTime(previous.uploaded(), scrollId);
+        }
+        if (uploaded != null) {
+            scrollIdsByUploadTime.computeIfAbsent(uploaded, key -> new TreeSet<>()).add(scrollId);
+        }
+        sortedIds.add(scrollId);
+        indexedFieldsById.put(scrollId, new IndexedFields(nameKey, owner, uploaded));
+    }
+
+    void remove(String scrollId) {
+        IndexedFields previous = indexedFieldsById.remove(scrollId);
+        if (previous == null) {
+            return;
+        }
+        sortedIds.remove(scrollId);
+        removeName(previous.nameKey(), scrollId);
+        removeOwner(previous.owner(), scrollId);
+        removeUploadTime(previous.uploaded(), scrollId);
+    }
+
+    private Iterator<String> iterateUploadTimes(NavigableMap<LocalDateTime, NavigableSet<String>> idsByUploadTime,
+                                                ScrollCursor after) {
+        if (after == null || after.getUploadTimestamp() == null) {
+            return idsByUploadTime.values().stream().flatMap(Set::stream).iterator();
+        }
+        LocalDateTime timestamp = after.getUploadTimestamp();
+        return idsByUploadTime.tailMap(timestamp, true).entrySet().stream()
+                .flatMap(entry -> entry.getKey().equals(timestamp)
+                        ? entry.getValue().tailSet(after.getScrollId(), false).stream()
+                        : entry.getValue().stream())
+                .iterator();
+    }
+
+    private NavigableMap<LocalDateTime, NavigableSet<String>> uploadTimeRange(LocalDateTime fromInclusive, LocalDateTime toExclusive) {
+        if (fromInclusive != null && toExclusive != null) {
+            if (!fromInclusive.isBefore(toExclusive)) {
+                return Collections.emptyNavigableMap();
+            }
+            return scrollIdsByUploadTime.subMap(fromInclusive, true, toExclusive, false);
+        }
+        if (fromInclusive != null) {
+            return scrollIdsByUploadTime.tailMap(fromInclusive, true);
+        }
+        if (toExclusive != null) {
+            return scrollIdsByUploadTime.headMap(toExclusive, false);
+        }
+        return scrollIdsByUploadTime;
+    }
+
+    private void removeUploadTime(LocalDateTime uploaded, String scrollId) {
+        if (uploaded == null) {
+            return;
+        }
+        NavigableSet<String> ids = scrollIdsByUploadTime.get(uploaded);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(scrollId);
+        if (ids.isEmpty()) {
+            scrollIdsByUploadTime.remove(uploaded);
+        }
+    }
+
+    private void removeName(String nameKey, String scrollId) {
+        Set<String> ids = nameKey == null ? null : scrollIdsByName.get(nameKey);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(scrollId);
+        if (ids.isEmpty()) {
+            scrollIdsByName.remove(nameKey);
+        }
+    }
+
+    private void removeOwner(String owner, String scrollId) {
+        Set<String> ids = scrollIdsByOwner.get(owner);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(scrollId);
+        if (ids.isEmpty()) {
+            scrollIdsByOwner.remove(owner);
+        }
+    }
+
+    private String normalize(String value) {
+        return value.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexedFields(String nameKey, String owner, LocalDateTime uploaded) {
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.digital_scroll_management;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+class ScrollCursor {
+    private final ScrollOrder order;
+    private final LocalDateTime uploadTimestamp;
+    private final String scrollId;
+
+    private ScrollCursor(ScrollOrder order, LocalDateTime uploadTimestamp, String scrollId) {
+        this.order = order;
+        this.uploadTimestamp = uploadTimestamp;
+        this.scrollId = scrollId;
+    }
+
+    static ScrollCursor after(ScrollOrder order, DigitalScroll scroll) {
+        return new ScrollCursor(order, scroll.getUploadTimestamp(), scroll.getScrollId());
+    }
+
+    static ScrollCursor decode(String token, ScrollOrder order) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            ScrollOrder tokenOrder = ScrollOrder.valueOf(parts[0]);
+            if (tokenOrder != order || parts.length != 3) {
+                throw new IllegalArgumentException("Invalid page cursor.");
+            }
+            LocalDateTime timestamp = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new ScrollCursor(order, timestamp, parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor.", e);
+        }
+    }
+
+    String encode() {
+        String raw = order.name() + "|" + (uploadTimestamp == null ? "" : uploadTimestamp) + "|" + scrollId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    LocalDateTime getUploadTimestamp() {
+        return uploadTimestamp;
+    }
+
+    String getScrollId() {
+        return scrollId;
+    }
+}
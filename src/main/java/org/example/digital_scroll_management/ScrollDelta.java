@@ -0,0 +1,254 @@
+package org.example.digital_scroll_management;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+final class ScrollDelta {
+    static final int BLOCK_SIZE = 4096;
+    static final long MAX_ENCODED_SIZE = Integer.MAX_VALUE;
+
+    private static final int MAGIC = 0x53444C54;
+    private static final int END = 0;
+    private static final int COPY = 1;
+    private static final int LITERAL = 2;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private ScrollDelta() {
+    }
+
+    static void encode(Path base, Path target, Path delta) throws IOException {
+        try (FileChannel baseChannel = FileChannel.open(base, StandardOpenOption.READ);
+             FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.READ);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
+                     Files.newOutputStream(delta), new Deflater(Deflater.DEFAULT_COMPRESSION), IO_BUFFER_SIZE)))) {
+            ByteBuffer baseBytes = map(baseChannel);
+            ByteBuffer targetBytes = map(targetChannel);
+            out.writeInt(MAGIC);
+            out.writeLong(targetBytes.limit());
+            new Encoder(baseBytes, targetBytes, out).run();
+            out.writeByte(END);
+        }
+    }
+
+    static void encodeFull(Path target, Path delta) throws IOException {
+        try (FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.READ);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
+                     Files.newOutputStream(delta), new Deflater(Deflater.DEFAULT_COMPRESSION), IO_BUFFER_SIZE)))) {
+            long size = targetChannel.size();
+            out.writeInt(MAGIC);
+            out.writeLong(size);
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_SIZE);
+            long position = 0;
+            while (position < size) {
+                buffer.clear();
+                int read = targetChannel.read(buffer, position);
+                if (read <= 0) {
+                    throw new IOException("Scroll shrank while archiving: " + target);
+                }
+                out.writeByte(LITERAL);
+                out.writeInt(read);
+                out.write(buffer.array(), 0, read);
+                position += read;
+            }
+            out.writeByte(END);
+        }
+    }
+
+    static void apply(Path base, Path delta, Path output) throws IOException {
+        try (FileChannel baseChannel = FileChannel.open(base, StandardOpenOption.READ);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(
+                     new InflaterInputStream(Files.newInputStream(delta)), IO_BUFFER_SIZE));
+             FileChannel out = FileChannel.open(output,
+                     StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a scroll delta: " + delta);
+            }
+            long expectedSize = in.readLong();
+            byte[] buffer = new byte[IO_BUFFER_SIZE];
+            int op;
+            while ((op = in.readUnsignedByte()) != END) {
+                if (op == COPY) {
+                    long offset = in.readLong();
+                    int length = in.readInt();
+                    long copied = 0;
+                    while (copied < length) {
+                        long count = baseChannel.transferTo(offset + copied, length - copied, out);
+                        if (count <= 0) {
+                            throw new IOException("Scroll delta refers past the end of its base: " + delta);
+                        }
+                        copied += count;
+                    }
+                } else if (op == LITERAL) {
+                    int remaining = in.readInt();
+                    while (remaining > 0) {
+                        int count = Math.min(remaining, buffer.length);
+                        in.readFully(buffer, 0, count);
+                        out.write(ByteBuffer.wrap(buffer, 0, count));
+                        remaining -= count;
+                    }
+                } else {
+                    throw new IOException("Corrupt scroll delta: " + delta);
+                }
+            }
+            if (out.size() != expectedSize) {
+                throw new IOException("Scroll delta produced " + out.size() + " bytes, expected " + expectedSize);
+            }
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel) throws IOException {
+        if (channel.size() > MAX_ENCODED_SIZE) {
+            throw new IOException("File too large for delta encoding.");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    private static final class Encoder {
+        private final ByteBuffer base;
+        private final ByteBuffer target;
+        private final DataOutputStream out;
+        private final int[] blockChecksums;
+        private final int[] chainHeads;
+        private final int[] chainNext;
+        private final byte[] buffer = new byte[IO_BUFFER_SIZE];
+        private long pendingCopyOffset = -1;
+        private int pendingCopyLength;
+
+        Encoder(ByteBuffer base, ByteBuffer target, DataOutputStream out) {
+            this.base = base;
+            this.target = target;
+            this.out = out;
+            int blocks = base.limit() / BLOCK_SIZE;
+            this.blockChecksums = new int[blocks];
+            this.chainHeads = new int[Integer.highestOneBit(Math.max(1, blocks)) << 1];
+            this.chainNext = new int[blocks];
+            Arrays.fill(chainHeads, -1);
+            for (int block = blocks - 1; block >= 0; block--) {
+                int checksum = checksum(base, block * BLOCK_SIZE);
+                int bucket = bucket(checksum);
+                blockChecksums[block] = checksum;
+                chainNext[block] = chainHeads[bucket];
+                chainHeads[bucket] = block;
+            }
+        }
+
+        void run() throws IOException {
+            int length = target.limit();
+            int literalStart = 0;
+            int position = 0;
+            if (length >= BLOCK_SIZE) {
+                int a = 0;
+                int b = 0;
+                for (int i = 0; i < BLOCK_SIZE; i++) {
+                    int value = target.get(i) & 0xFF;
+                    a += value;
+                    b += (BLOCK_SIZE - i) * value;
+                }
+                while (true) {
+                    int match = findBlock((a & 0xFFFF) | (b << 16), position);
+                    if (match >= 0) {
+                        writeLiteral(literalStart, position);
+                        copy((long) match * BLOCK_SIZE);
+                        position += BLOCK_SIZE;
+                        literalStart = position;
+                        if (position + BLOCK_SIZE > length) {
+                            break;
+                        }
+                        a = 0;
+                        b = 0;
+                        for (int i = 0; i < BLOCK_SIZE; i++) {
+                            int value = target.get(position + i) & 0xFF;
+                            a += value;
+                            b += (BLOCK_SIZE - i) * value;
+                        }
+                        continue;
+                    }
+                    if (position + BLOCK_SIZE >= length) {
+                        break;
+                    }
+                    int outgoing = target.get(position) & 0xFF;
+                    int incoming = target.get(position + BLOCK_SIZE) & 0xFF;
+                    a = a - outgoing + incoming;
+                    b = b - BLOCK_SIZE * outgoing + a;
+                    position++;
+                }
+            }
+            writeLiteral(literalStart, length);
+            flushCopy();
+        }
+
+        private int findBlock(int checksum, int position) {
+            for (int block = chainHeads[bucket(checksum)]; block >= 0; block = chainNext[block]) {
+                if (blockChecksums[block] == checksum
+                        && target.slice(position, BLOCK_SIZE).equals(base.slice(block * BLOCK_SIZE, BLOCK_SIZE))) {
+                    return block;
+                }
+            }
+            return -1;
+        }
+
+        private int bucket(int checksum) {
+            return (checksum ^ (checksum >>> 16)) & (chainHeads.length - 1);
+        }
+
+        private void copy(long offset) throws IOException {
+            if (pendingCopyOffset >= 0 && pendingCopyOffset + pendingCopyLength == offset
+                    && pendingCopyLength <= Integer.MAX_VALUE - BLOCK_SIZE) {
+                pendingCopyLength += BLOCK_SIZE;
+                return;
+            }
+            flushCopy();
+            pendingCopyOffset = offset;
+            pendingCopyLength = BLOCK_SIZE;
+        }
+
+        private void flushCopy() throws IOException {
+            if (pendingCopyOffset < 0) {
+                return;
+            }
+            out.writeByte(COPY);
+            out.writeLong(pendingCopyOffset);
+            out.writeInt(pendingCopyLength);
+            pendingCopyOffset = -1;
+        }
+
+        private void writeLiteral(int from, int to) throws IOException {
+            if (from >= to) {
+                return;
+            }
+            flushCopy();
+            out.writeByte(LITERAL);
+            out.writeInt(to - from);
+            for (int position = from; position < to; position += buffer.length) {
+                int count = Math.min(buffer.length, to - position);
+                target.get(position, buffer, 0, count);
+                out.write(buffer, 0, count);
+            }
+        }
+
+        private static int checksum(ByteBuffer bytes, int offset) {
+            int a = 0;
+            int b = 0;
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                int value = bytes.get(offset + i) & 0xFF;
+                a += value;
+                b += (BLOCK_SIZE - i) * value;
+            }
+            return (a & 0xFFFF) | (b << 16);
+        }
+    }
+}
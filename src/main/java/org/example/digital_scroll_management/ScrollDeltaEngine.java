@@ -0,0 +1,259 @@
+package org.example.digital_scroll_management;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+class ScrollDeltaEngine {
+    private static final int MAGIC = 0x53424C4B;
+    private static final String SIGNATURE_SUFFIX = ".blocks";
+    private static final int DIGEST_BYTES = 32;
+    private static final int JOURNAL_MAGIC = 0x534A524E;
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final int JOURNAL_BUFFER_SIZE = 64 * 1024;
+
+    private final ScrollTransferEngine transferEngine;
+    private final Path journalDirectory;
+
+    ScrollDeltaEngine(ScrollTransferEngine transferEngine, Path journalDirectory) {
+        this.transferEngine = transferEngine;
+        this.journalDirectory = journalDirectory;
+    }
+
+    static Path signaturePath(Path file) {
+        return file.resolveSibling(file.getFileName() + SIGNATURE_SUFFIX);
+    }
+
+    long update(Path source, ScrollFingerprint sourceFingerprint, Path target, String expectedHash) throws IOException {
+        ScrollFingerprint stored = readSignature(target);
+        Path signature = signaturePath(target);
+        if (stored == null
+                || !stored.getHash().equals(expectedHash)
+                || !Files.isRegularFile(target)
+                || Files.size(target) != stored.getSize()) {
+            Files.deleteIfExists(signature);
+            long written = transferEngine.transfer(source, target);
+            writeSignature(target, sourceFingerprint);
+            return written;
+        }
+        return rewriteChangedBlocks(source, sourceFingerprint, target, stored);
+    }
+
+    void recoverInterruptedRewrites() throws IOException {
+        if (!Files.isDirectory(journalDirectory)) {
+            return;
+        }
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            entries = files.sorted().toList();
+        }
+        for (Path entry : entries) {
+            if (entry.getFileName().toString().endsWith(JOURNAL_SUFFIX)) {
+                rollBack(entry);
+            } else {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    void writeSignature(Path file, ScrollFingerprint fingerprint) throws IOException {
+        Path signature = signaturePath(file);
+        Path temp = signature.resolveSibling(signature.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(ScrollFingerprint.BLOCK_SIZE);
+            out.writeLong(fingerprint.getSize());
+            out.writeInt(fingerprint.getBlockCount());
+            for (int block = 0; block < fingerprint.getBlockCount(); block++) {
+                out.write(fingerprint.getBlockDigest(block));
+            }
+        }
+        Files.move(temp, signature, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void deleteSignature(Path file) {
+        try {
+            Files.deleteIfExists(signaturePath(file));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private long rewriteChangedBlocks(Path source,
+                                      ScrollFingerprint sourceFingerprint,
+                                      Path target,
+                                      ScrollFingerprint stored) throws IOException {
+        List<long[]> runs = changedRuns(sourceFingerprint, stored);
+        Path journal = writeJournal(target, stored.getSize(), undoRanges(runs, sourceFingerprint.getSize(), stored.getSize()));
+        long written = 0;
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                for (long[] run : runs) {
+                    written += transferEngine.transferRange(in, out, run[0], run[1] - run[0]);
+                }
+                out.truncate(sourceFingerprint.getSize());
+                out.force(false);
+            }
+            writeSignature(target, sourceFingerprint);
+        } catch (IOException | RuntimeException e) {
+            try {
+                rollBack(journal);
+            } catch (IOException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        }
+        Files.delete(journal);
+        return written;
+    }
+
+    private List<long[]> changedRuns(ScrollFingerprint source, ScrollFingerprint stored) {
+        List<long[]> runs = new ArrayList<>();
+        int blockCount = source.getBlockCount();
+        int block = 0;
+        while (block < blockCount) {
+            if (sameBlock(source, stored, block)) {
+                block++;
+                continue;
+            }
+            int runStart = block;
+            while (block < blockCount && !sameBlock(source, stored, block)) {
+                block++;
+            }
+            long start = (long) runStart * ScrollFingerprint.BLOCK_SIZE;
+            long end = Math.min((long) block * ScrollFingerprint.BLOCK_SIZE, source.getSize());
+            runs.add(new long[]{start, end});
+        }
+        return runs;
+    }
+
+    private List<long[]> undoRanges(List<long[]> runs, long newSize, long originalSize) {
+        List<long[]> ranges = new ArrayList<>();
+        for (long[] run : runs) {
+            if (run[0] < originalSize) {
+                ranges.add(new long[]{run[0], Math.min(run[1], originalSize)});
+            }
+        }
+        if (newSize < originalSize) {
+            ranges.add(new long[]{newSize, originalSize});
+        }
+        return ranges;
+    }
+
+    private Path writeJournal(Path target, long originalSize, List<long[]> ranges) throws IOException {
+        Files.createDirectories(journalDirectory);
+        Path temp = Files.createTempFile(journalDirectory, "rewrite", ".tmp");
+        try {
+            try (FileChannel in = FileChannel.open(target, StandardOpenOption.READ);
+                 FileChannel journal = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journal)));
+                out.writeInt(JOURNAL_MAGIC);
+                out.writeUTF(target.toAbsolutePath().toString());
+                out.writeLong(originalSize);
+                out.writeInt(ranges.size());
+                ByteBuffer buffer = ByteBuffer.allocate(JOURNAL_BUFFER_SIZE);
+                for (long[] range : ranges) {
+                    out.writeLong(range[0]);
+                    out.writeLong(range[1] - range[0]);
+                    long position = range[0];
+                    while (position < range[1]) {
+                        buffer.clear().limit((int) Math.min(buffer.capacity(), range[1] - position));
+                        int read = in.read(buffer, position);
+                        if (read <= 0) {
+                            throw new IOException("Stored scroll ended early: " + target);
+                        }
+                        out.write(buffer.array(), 0, read);
+                        position += read;
+                    }
+                }
+                out.flush();
+                journal.force(true);
+            }
+            Path journal = temp.resolveSibling(temp.getFileName().toString().replace(".tmp", JOURNAL_SUFFIX));
+            Files.move(temp, journal, StandardCopyOption.ATOMIC_MOVE);
+            return journal;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void rollBack(Path journal) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            if (in.readInt() != JOURNAL_MAGIC) {
+                throw new IOException("Unrecognised rewrite journal: " + journal);
+            }
+            Path target = Path.of(in.readUTF());
+            long originalSize = in.readLong();
+            int rangeCount = in.readInt();
+            if (Files.isRegularFile(target)) {
+                try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                    byte[] buffer = new byte[JOURNAL_BUFFER_SIZE];
+                    for (int i = 0; i < rangeCount; i++) {
+                        long position = in.readLong();
+                        long remaining = in.readLong();
+                        while (remaining > 0) {
+                            int length = (int) Math.min(buffer.length, remaining);
+                            in.readFully(buffer, 0, length);
+                            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, length);
+                            while (chunk.hasRemaining()) {
+                                position += out.write(chunk, position);
+                            }
+                            remaining -= length;
+                        }
+                    }
+                    out.truncate(originalSize);
+                    out.force(false);
+                }
+                deleteSignature(target);
+            }
+        }
+        Files.delete(journal);
+    }
+
+    private boolean sameBlock(ScrollFingerprint source, ScrollFingerprint stored, int block) {
+        if (block >= stored.getBlockCount()) {
+            return false;
+        }
+        long sourceEnd = Math.min((long) (block + 1) * ScrollFingerprint.BLOCK_SIZE, source.getSize());
+        long storedEnd = Math.min((long) (block + 1) * ScrollFingerprint.BLOCK_SIZE, stored.getSize());
+        return sourceEnd == storedEnd && Arrays.equals(source.getBlockDigest(block), stored.getBlockDigest(block));
+    }
+
+    private ScrollFingerprint readSignature(Path file) {
+        Path signature = signaturePath(file);
+        if (!Files.exists(signature)) {
+            return null;
+        }
+        try (InputStream stream = Files.newInputStream(signature);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            if (in.readInt() != MAGIC || in.readInt() != ScrollFingerprint.BLOCK_SIZE) {
+                return null;
+            }
+            long size = in.readLong();
+            int blockCount = in.readInt();
+            byte[][] digests = new byte[blockCount][DIGEST_BYTES];
+            for (byte[] digest : digests) {
+                in.readFully(digest);
+            }
+            return ScrollFingerprint.fromBlocks(size, digests);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.digital_scroll_management;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+class ScrollDownloadCounters {
+    private static final int MAGIC = 0x53444354;
+
+    private final Path counterPath;
+    private final ScrollDownloadMetrics metrics;
+    private final Map<String, DigitalScroll> dirty = new ConcurrentHashMap<>();
+    private final Set<String> forgotten = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> persisted = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    ScrollDownloadCounters(Path counterPath, ScrollDownloadMetrics metrics, long flushIntervalMillis) {
+        this.counterPath = counterPath;
+        this.metrics = metrics;
+        if (flushIntervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "scroll-download-counter-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    synchronized void load(Collection<DigitalScroll> scrolls) {
+        persisted.clear();
+        if (Files.exists(counterPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(counterPath)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IllegalStateException("Not a scroll counter file: " + counterPath);
+                }
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    persisted.put(in.readUTF(), in.readLong());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read scroll counters: " + counterPath, e);
+            }
+        }
+        for (DigitalScroll scroll : scrolls) {
+            Long count = persisted.get(scroll.getScrollId());
+            if (count != null && count > scroll.getDownloadCount()) {
+                scroll.addDownloads(count - scroll.getDownloadCount());
+            }
+        }
+    }
+
+    void record(DigitalScroll scroll, long timestampMillis) {
+        scroll.incrementDownloadCount();
+        metrics.record(scroll.getScrollId(), timestampMillis);
+        dirty.put(scroll.getScrollId(), scroll);
+        if (flusher == null) {
+            flush();
+        }
+    }
+
+    void forget(Collection<String> scrollIds) {
+        for (String scrollId : scrollIds) {
+            dirty.remove(scrollId);
+            metrics.forget(scrollId);
+            forgotten.add(scrollId);
+        }
+        if (flusher == null) {
+            flush();
+        }
+    }
+
+    synchronized void flush() {
+        metrics.flush();
+        boolean changed = false;
+        for (String scrollId : forgotten) {
+            forgotten.remove(scrollId);
+            changed |= persisted.remove(scrollId) != null;
+        }
+        for (String scrollId : dirty.keySet()) {
+            DigitalScroll scroll = dirty.remove(scrollId);
+            if (scroll != null) {
+                persisted.put(scrollId, (long) scroll.getDownloadCount());
+                changed = true;
+            }
+        }
+        if (changed) {
+            write();
+        }
+    }
+
+    void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ignored) {
+        }
+    }
+
+    private void write() {
+        Path temp = Path.of(counterPath.toString() + ".tmp");
+        try {
+            Path parent = counterPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(persisted.size());
+                for (Map.Entry<String, Long> entry : persisted.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            Files.move(temp, counterPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write scroll counters: " + counterPath, e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package org.example.digital_scroll_management;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+class ScrollDownloadMetrics {
+    private static final int MAGIC = 0x53444D54;
+    private static final DownloadWindow[] WINDOWS = DownloadWindow.values();
+
+    private final Path metricsPath;
+    private final Map<String, Series> seriesById = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    ScrollDownloadMetrics(Path metricsPath) {
+        this.metricsPath = metricsPath;
+    }
+
+    void record(String scrollId, long timestampMillis) {
+        seriesById.computeIfAbsent(scrollId, id -> new Series()).record(timestampMillis);
+        dirty = true;
+    }
+
+    void forget(String scrollId) {
+        if (seriesById.remove(scrollId) != null) {
+            dirty = true;
+        }
+    }
+
+    ScrollDownloadTrend trend(String scrollId, DownloadWindow window, long nowMillis) {
+        Series series = seriesById.get(scrollId);
+        int[] buckets = series == null ? new int[window.getBucketCount()] : series.buckets(window, nowMillis);
+        return new ScrollDownloadTrend(scrollId, window, buckets);
+    }
+
+    List<ScrollDownloadTrend> top(DownloadWindow window, int limit, long nowMillis) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        PriorityQueue<ScrollDownloadTrend> best = new PriorityQueue<>(byTotal());
+        for (Map.Entry<String, Series> entry : seriesById.entrySet()) {
+            ScrollDownloadTrend trend = new ScrollDownloadTrend(entry.getKey(), window,
+                    entry.getValue().buckets(window, nowMillis));
+            if (trend.getTotal() == 0) {
+                continue;
+            }
+            best.add(trend);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<ScrollDownloadTrend> result = new ArrayList<>(best);
+        result.sort(byTotal().reversed());
+        return result;
+    }
+
+    synchronized void load(Collection<String> knownIds) {
+        seriesById.clear();
+        if (!Files.exists(metricsPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(metricsPath)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Not a scroll metrics file: " + metricsPath);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String scrollId = in.readUTF();
+                Series series = new Series();
+                series.read(in);
+                if (knownIds.contains(scrollId)) {
+                    seriesById.put(scrollId, series);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read scroll metrics: " + metricsPath, e);
+        }
+    }
+
+    synchronized void flush() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Path temp = Path.of(metricsPath.toString() + ".tmp");
+        try {
+            Path parent = metricsPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            List<Map.Entry<String, Series>> entries = new ArrayList<>(seriesById.entrySet());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Series> entry : entries) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(temp, metricsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            throw new IllegalStateException("Failed to write scroll metrics: " + metricsPath, e);
+        }
+    }
+
+    private static Comparator<ScrollDownloadTrend> byTotal() {
+        return Comparator.comparingLong(ScrollDownloadTrend::getTotal)
+                .thenComparing(ScrollDownloadTrend::getScrollId, Comparator.reverseOrder());
+    }
+
+    private static final class Series {
+        private final int[][] rings = new int[WINDOWS.length][];
+        private final long[] newestBucket = new long[WINDOWS.length];
+
+        Series() {
+            for (int i = 0; i < WINDOWS.length; i++) {
+                rings[i] = new int[WINDOWS[i].getBucketCount()];
+                newestBucket[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void record(long timestampMillis) {
+            for (int i = 0; i < WINDOWS.length; i++) {
+                int[] ring = rings[i];
+                long bucket = Math.floorDiv(timestampMillis, WINDOWS[i].getBucketMillis());
+                long newest = newestBucket[i];
+                if (bucket > newest) {
+                    long stale = newest == Long.MIN_VALUE ? ring.length : Math.min(ring.length, bucket - newest);
+                    for (long b = bucket - stale + 1; b <= bucket; b++) {
+                        ring[Math.floorMod(b, ring.length)] = 0;
+                    }
+                    newestBucket[i] = bucket;
+                } else if (bucket <= newest - ring.length) {
+                    continue;
+                }
+                ring[Math.floorMod(bucket, ring.length)]++;
+            }
+        }
+
+        synchronized int[] buckets(DownloadWindow window, long nowMillis) {
+            int index = window.ordinal();
+            int[] ring = rings[index];
+            long newest = newestBucket[index];
+            long now = Math.floorDiv(nowMillis, window.getBucketMillis());
+            int[] result = new int[ring.length];
+            for (int i = 0; i < ring.length; i++) {
+                long bucket = now - ring.length + 1 + i;
+                if (bucket <= newest && bucket > newest - ring.length) {
+                    result[i] = ring[Math.floorMod(bucket, ring.length)];
+                }
+            }
+            return result;
+        }
+
+        synchronized void write(DataOutputStream out) throws IOException {
+            for (int i = 0; i < WINDOWS.length; i++) {
+                out.writeLong(newestBucket[i]);
+                for (int count : rings[i]) {
+                    out.writeInt(count);
+                }
+            }
+        }
+
+        synchronized void read(DataInputStream in) throws IOException {
+            for (int i = 0; i < WINDOWS.length; i++) {
+                newestBucket[i] = in.readLong();
+                for (int slot = 0; slot < rings[i].length; slot++) {
+                    rings[i][slot] = in.readInt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.digital_scroll_management;
+
+import java.util.Arrays;
+
+public class ScrollDownloadTrend {
+    private static final String SPARK_LEVELS = "_.-:=+*#";
+
+    private final String scrollId;
+    private final DownloadWindow window;
+    private final int[] buckets;
+    private final long total;
+
+    ScrollDownloadTrend(String scrollId, DownloadWindow window, int[] buckets) {
+        this.scrollId = scrollId;
+        this.window = window;
+        this.buckets = buckets;
+        this.total = Arrays.stream(buckets).asLongStream().sum();
+    }
+
+    public String getScrollId() {
+        return scrollId;
+    }
+
+    public DownloadWindow getWindow() {
+        return window;
+    }
+
+    public int[] getBuckets() {
+        return buckets.clone();
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public String sparkline() {
+        int max = Arrays.stream(buckets).max().orElse(0);
+        StringBuilder line = new StringBuilder(buckets.length);
+        for (int count : buckets) {
+            if (count == 0 || max == 0) {
+                line.append(' ');
+            } else {
+                int level = (int) (((long) count * SPARK_LEVELS.length() - 1) / max);
+                line.append(SPARK_LEVELS.charAt(level));
+            }
+        }
+        return line.toString();
+    }
+}
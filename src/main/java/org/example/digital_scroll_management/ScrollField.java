@@ -0,0 +1,7 @@
+package org.example.digital_scroll_management;
+
+public enum ScrollField {
+    SCROLL_ID,
+    NAME,
+    OWNER
+}
@@ -0,0 +1,97 @@
+package org.example.digital_scroll_management;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.stream.IntStream;
+
+final class ScrollFingerprint {
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+    private final long size;
+    private final byte[][] blockDigests;
+    private final String hash;
+
+    private ScrollFingerprint(long size, byte[][] blockDigests) {
+        this.size = size;
+        this.blockDigests = blockDigests;
+        MessageDigest digest = newDigest();
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(size).array());
+        for (byte[] blockDigest : blockDigests) {
+            digest.update(blockDigest);
+        }
+        this.hash = HexFormat.of().formatHex(digest.digest());
+    }
+
+    static ScrollFingerprint fromBlocks(long size, byte[][] blockDigests) {
+        return new ScrollFingerprint(size, blockDigests);
+    }
+
+    static ScrollFingerprint of(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int blockCount = (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            byte[][] blockDigests = new byte[blockCount][];
+            try {
+                IntStream.range(0, blockCount).parallel()
+                        .forEach(block -> blockDigests[block] = digestBlock(channel, block, size));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return new ScrollFingerprint(size, blockDigests);
+        }
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    int getBlockCount() {
+        return blockDigests.length;
+    }
+
+    byte[] getBlockDigest(int block) {
+        return blockDigests[block];
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    boolean matches(DigitalScroll scroll) {
+        return scroll.getContentSize() == size && hash.equals(scroll.getContentHash());
+    }
+
+    static byte[] digestBlock(FileChannel channel, int block, long size) {
+        long position = (long) block * BLOCK_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BLOCK_SIZE, size - position));
+        try {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        MessageDigest digest = newDigest();
+        digest.update(buffer);
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+}
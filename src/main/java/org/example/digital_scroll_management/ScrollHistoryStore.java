@@ -0,0 +1,140 @@
+package org.example.digital_scroll_management;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+class ScrollHistoryStore {
+    private static final String MANIFEST = "versions";
+    private static final String DELIMITER = "|";
+
+    static final long DEFAULT_DELTA_LIMIT = 256L * 1024 * 1024;
+
+    private final Path historyDirectory;
+    private final int retainedVersions;
+    private final long deltaLimit;
+
+    ScrollHistoryStore(Path historyDirectory, int retainedVersions) {
+        this(historyDirectory, retainedVersions, DEFAULT_DELTA_LIMIT);
+    }
+
+    ScrollHistoryStore(Path historyDirectory, int retainedVersions, long deltaLimit) {
+        this.historyDirectory = historyDirectory;
+        this.retainedVersions = retainedVersions;
+        this.deltaLimit = Math.min(deltaLimit, ScrollDelta.MAX_ENCODED_SIZE);
+    }
+
+    Path prepare(String scrollId, Path previousContent, Path newContent) throws IOException {
+        Path directory = historyDirectory.resolve(scrollId);
+        Files.createDirectories(directory);
+        Path pending = Files.createTempFile(directory, "pending", ".delta");
+        try {
+            if (Files.size(previousContent) > deltaLimit || Files.size(newContent) > deltaLimit) {
+                ScrollDelta.encodeFull(previousContent, pending);
+            } else {
+                ScrollDelta.encode(newContent, previousContent, pending);
+            }
+            return pending;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(pending);
+            throw e;
+        }
+    }
+
+    void commit(String scrollId, int version, long size, Path pending, LocalDateTime supersededAt) throws IOException {
+        Path directory = historyDirectory.resolve(scrollId);
+        Files.move(pending, deltaPath(scrollId, version), StandardCopyOption.REPLACE_EXISTING);
+        List<ScrollVersion> versions = new ArrayList<>(list(scrollId));
+        versions.removeIf(existing -> existing.getVersion() == version);
+        versions.add(0, new ScrollVersion(version, size, supersededAt));
+        while (versions.size() > retainedVersions) {
+            ScrollVersion dropped = versions.remove(versions.size() - 1);
+            Files.deleteIfExists(deltaPath(scrollId, dropped.getVersion()));
+        }
+        List<String> lines = new ArrayList<>();
+        for (ScrollVersion entry : versions) {
+            lines.add(entry.getVersion() + DELIMITER + entry.getSupersededAt() + DELIMITER + entry.getSize());
+        }
+        Path manifest = directory.resolve(MANIFEST);
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    List<ScrollVersion> list(String scrollId) throws IOException {
+        Path manifest = historyDirectory.resolve(scrollId).resolve(MANIFEST);
+        List<ScrollVersion> versions = new ArrayList<>();
+        if (!Files.exists(manifest)) {
+            return versions;
+        }
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\\|", -1);
+            if (parts.length < 3) {
+                continue;
+            }
+            try {
+                versions.add(new ScrollVersion(Integer.parseInt(parts[0]),
+                        Long.parseLong(parts[2]),
+                        LocalDateTime.parse(parts[1])));
+            } catch (RuntimeException ignored) {
+            }
+        }
+        return versions;
+    }
+
+    void reconstruct(String scrollId, int version, Path current, Path output) throws IOException {
+        List<ScrollVersion> versions = list(scrollId);
+        if (versions.stream().noneMatch(entry -> entry.getVersion() == version)) {
+            throw new IllegalArgumentException("Scroll version not found.");
+        }
+        Path base = current;
+        Path scratch = null;
+        try {
+            for (ScrollVersion entry : versions) {
+                Path next = Files.createTempFile(historyDirectory.resolve(scrollId), "restore", ".tmp");
+                ScrollDelta.apply(base, deltaPath(scrollId, entry.getVersion()), next);
+                if (scratch != null) {
+                    Files.deleteIfExists(scratch);
+                }
+                scratch = next;
+                base = next;
+                if (entry.getVersion() == version) {
+                    break;
+                }
+            }
+            Files.move(scratch, output, StandardCopyOption.REPLACE_EXISTING);
+            scratch = null;
+        } finally {
+            if (scratch != null) {
+                Files.deleteIfExists(scratch);
+            }
+        }
+    }
+
+    void delete(String scrollId) {
+        Path directory = historyDirectory.resolve(scrollId);
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                }
+            });
+        } catch (IOException ignored) {
+        }
+    }
+
+    private Path deltaPath(String scrollId, int version) {
+        return historyDirectory.resolve(scrollId).resolve("v" + version + ".delta");
+    }
+}
@@ -0,0 +1,127 @@
+package org.example.digital_scroll_management;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ScrollIdAllocator {
+    static final String PREFIX = "SC";
+
+    private static final int MAGIC = 0x53494441;
+    private static final int BASE_WIDTH = 4;
+    private static final long BASE_LIMIT = 9999;
+
+    private final Path leasePath;
+    private final int blockSize;
+    private final AtomicLong next = new AtomicLong(1);
+    private volatile long leaseEnd;
+
+    ScrollIdAllocator(Path leasePath, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Lease block size must be positive.");
+        }
+        this.leasePath = leasePath;
+        this.blockSize = blockSize;
+    }
+
+    void observe(String id) {
+        long value = parse(id);
+        if (value > 0) {
+            next.accumulateAndGet(value + 1, Math::max);
+        }
+    }
+
+    synchronized void load() {
+        if (!Files.exists(leasePath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(leasePath))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Not a scroll ID lease file: " + leasePath);
+            }
+            leaseEnd = in.readLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read scroll ID lease: " + leasePath, e);
+        }
+        next.accumulateAndGet(leaseEnd, Math::max);
+    }
+
+    String allocate() {
+        long value = next.getAndIncrement();
+        if (value >= leaseEnd) {
+            extendLease(value);
+        }
+        return format(value);
+    }
+
+    static String format(long value) {
+        String digits = Long.toString(value);
+        StringBuilder id = new StringBuilder(PREFIX.length() + BASE_WIDTH + 1).append(PREFIX);
+        if (value <= BASE_LIMIT) {
+            for (int i = digits.length(); i < BASE_WIDTH; i++) {
+                id.append('0');
+            }
+        } else {
+            id.append((char) ('A' + digits.length() - BASE_WIDTH - 1));
+        }
+        return id.append(digits).toString();
+    }
+
+    static long parse(String id) {
+        if (id == null || !id.startsWith(PREFIX) || id.length() == PREFIX.length()) {
+            return -1;
+        }
+        int start = PREFIX.length();
+        char marker = id.charAt(start);
+        if (marker >= 'A' && marker <= 'Z') {
+            start++;
+        }
+        long value = 0;
+        for (int i = start; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return start == id.length() ? -1 : value;
+    }
+
+    private synchronized void extendLease(long value) {
+        if (value < leaseEnd) {
+            return;
+        }
+        long end = value + blockSize;
+        writeLease(end);
+        leaseEnd = end;
+    }
+
+    private void writeLease(long end) {
+        Path temp = Path.of(leasePath.toString() + ".tmp");
+        try {
+            Path parent = leasePath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES).putInt(MAGIC).putLong(end).flip();
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, leasePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to persist scroll ID lease: " + leasePath, e);
+        }
+    }
+}
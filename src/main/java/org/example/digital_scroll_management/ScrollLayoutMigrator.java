@@ -0,0 +1,135 @@
+package org.example.digital_scroll_management;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+class ScrollLayoutMigrator {
+    private final DigitalScrollRepository repository;
+    private final ScrollBlobStore blobStore;
+    private final Function<DigitalScroll, Path> layoutPath;
+    private final int parallelism;
+    private final int batchSize;
+
+    ScrollLayoutMigrator(DigitalScrollRepository repository,
+                         ScrollBlobStore blobStore,
+                         Function<DigitalScroll, Path> layoutPath,
+                         int parallelism,
+                         int batchSize) {
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Parallelism and batch size must be positive.");
+        }
+        this.repository = repository;
+        this.blobStore = blobStore;
+        this.layoutPath = layoutPath;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+    }
+
+    int migrate() {
+        List<DigitalScroll> pending = new ArrayList<>();
+        for (DigitalScroll scroll : repository.getAll()) {
+            Path current = Path.of(scroll.getFilePath());
+            if (Files.isRegularFile(current) && !current.equals(layoutPath.apply(scroll))) {
+                pending.add(scroll);
+            }
+        }
+        int migrated = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            for (int start = 0; start < pending.size(); start += batchSize) {
+                migrated += migrateBatch(pending.subList(start, Math.min(start + batchSize, pending.size())), executor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return migrated;
+    }
+
+    private int migrateBatch(List<DigitalScroll> batch, ExecutorService executor) {
+        Map<String, String> previousPaths = new LinkedHashMap<>();
+        Map<String, String> newPaths = new LinkedHashMap<>();
+        Map<Path, Path> placements = new LinkedHashMap<>();
+        for (DigitalScroll scroll : batch) {
+            DigitalScroll latest = repository.findById(scroll.getScrollId());
+            if (latest == null || !latest.getFilePath().equals(scroll.getFilePath())) {
+                continue;
+            }
+            Path current = Path.of(scroll.getFilePath());
+            Path target = layoutPath.apply(scroll);
+            previousPaths.put(scroll.getScrollId(), scroll.getFilePath());
+            newPaths.put(scroll.getScrollId(), target.toString());
+            placements.putIfAbsent(current, target);
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Map.Entry<Path, Path> placement : placements.entrySet()) {
+            tasks.add(() -> {
+                place(placement.getKey(), placement.getValue());
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Storage layout migration interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to migrate scroll files.", e.getCause());
+        }
+        repository.updateFilePaths(newPaths);
+        for (Map.Entry<String, String> entry : previousPaths.entrySet()) {
+            release(entry.getValue(), Path.of(newPaths.get(entry.getKey())));
+        }
+        return newPaths.size();
+    }
+
+    private void place(Path current, Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        link(current, target);
+        Path signature = ScrollDeltaEngine.signaturePath(current);
+        if (Files.exists(signature)) {
+            link(signature, ScrollDeltaEngine.signaturePath(target));
+        }
+    }
+
+    private void link(Path current, Path target) throws IOException {
+        if (Files.exists(target)) {
+            boolean sharedBlob = blobStore != null && blobStore.isBlob(current.toString());
+            if (sharedBlob || Files.isSameFile(current, target)) {
+                return;
+            }
+            Files.delete(target);
+        }
+        try {
+            Files.createLink(target, current);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(current, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void release(String previousPath, Path target) {
+        try {
+            if (blobStore != null && blobStore.isBlob(previousPath)) {
+                blobStore.moveReference(previousPath, target);
+                return;
+            }
+            Path previous = Path.of(previousPath);
+            Files.deleteIfExists(previous);
+            Files.deleteIfExists(ScrollDeltaEngine.signaturePath(previous));
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.digital_scroll_management;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+class ScrollLeaderboard {
+    private final Map<String, Long> scoresById = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>();
+
+    synchronized void put(String scrollId, long score) {
+        Long previous = scoresById.put(scrollId, score);
+        if (previous != null) {
+            if (previous == score) {
+                return;
+            }
+            ranking.remove(new Entry(scrollId, previous));
+        }
+        ranking.add(new Entry(scrollId, score));
+    }
+
+    synchronized void rerank(String scrollId, LongSupplier score) {
+        if (scoresById.containsKey(scrollId)) {
+            put(scrollId, score.getAsLong());
+        }
+    }
+
+    synchronized void remove(String scrollId) {
+        Long previous = scoresById.remove(scrollId);
+        if (previous != null) {
+            ranking.remove(new Entry(scrollId, previous));
+        }
+    }
+
+    synchronized List<String> top(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive.");
+        }
+        List<String> result = new ArrayList<>(Math.min(limit, ranking.size()));
+        Iterator<Entry> entries = ranking.iterator();
+        while (result.size() < limit && entries.hasNext()) {
+            result.add(entries.next().scrollId());
+        }
+        return result;
+    }
+
+    private record Entry(String scrollId, long score) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int byScore = Long.compare(other.score, score);
+            return byScore != 0 ? byScore : scrollId.compareTo(other.scrollId);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package org.example.digital_scroll_management;
+
+public enum ScrollOrder {
+    BY_ID,
+    BY_UPLOAD_TIME
+}
@@ -0,0 +1,25 @@
+package org.example.digital_scroll_management;
+
+import java.util.List;
+
+public class ScrollPage {
+    private final List<DigitalScroll> items;
+    private final String nextCursor;
+
+    ScrollPage(List<DigitalScroll> items, String nextCursor) {
+        this.items = List.copyOf(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DigitalScroll> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.digital_scroll_management;
+
+public enum ScrollRanking {
+    MOST_DOWNLOADED,
+    MOST_UPDATED,
+    RECENTLY_UPDATED
+}
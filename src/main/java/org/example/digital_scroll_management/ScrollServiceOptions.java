@@ -0,0 +1,78 @@
+package org.example.digital_scroll_management;
+
+import org.example.storage.ShardedLayout;
+
+public class ScrollServiceOptions {
+    private ScrollTransferEngine transferEngine = new ScrollTransferEngine();
+    private boolean deduplicateUploads;
+    private int retainedVersions;
+    private boolean compressUploads;
+    private ShardedLayout layout = ShardedLayout.FLAT;
+    private long historyDeltaLimit = ScrollHistoryStore.DEFAULT_DELTA_LIMIT;
+
+    public ScrollServiceOptions transferEngine(ScrollTransferEngine transferEngine) {
+        if (transferEngine == null) {
+            throw new IllegalArgumentException("Transfer engine is required.");
+        }
+        this.transferEngine = transferEngine;
+        return this;
+    }
+
+    public ScrollServiceOptions deduplicateUploads(boolean deduplicateUploads) {
+        this.deduplicateUploads = deduplicateUploads;
+        return this;
+    }
+
+    public ScrollServiceOptions retainedVersions(int retainedVersions) {
+        if (retainedVersions < 0) {
+            throw new IllegalArgumentException("Retained versions cannot be negative.");
+        }
+        this.retainedVersions = retainedVersions;
+        return this;
+    }
+
+    public ScrollServiceOptions compressUploads(boolean compressUploads) {
+        this.compressUploads = compressUploads;
+        return this;
+    }
+
+    public ScrollServiceOptions layout(ShardedLayout layout) {
+        if (layout == null) {
+            throw new IllegalArgumentException("Storage layout is required.");
+        }
+        this.layout = layout;
+        return this;
+    }
+
+    public ScrollServiceOptions historyDeltaLimit(long historyDeltaLimit) {
+        if (historyDeltaLimit < 0) {
+            throw new IllegalArgumentException("History delta limit cannot be negative.");
+        }
+        this.historyDeltaLimit = historyDeltaLimit;
+        return this;
+    }
+
+    ScrollTransferEngine getTransferEngine() {
+        return transferEngine;
+    }
+
+    boolean isDeduplicatingUploads() {
+        return deduplicateUploads;
+    }
+
+    int getRetainedVersions() {
+        return retainedVersions;
+    }
+
+    boolean isCompressingUploads() {
+        return compressUploads;
+    }
+
+    ShardedLayout getLayout() {
+        return layout;
+    }
+
+    long getHistoryDeltaLimit() {
+        return historyDeltaLimit;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.digital_scroll_management;
+
+import java.time.LocalDateTime;
+
+public record ScrollSnapshot(String scrollId,
+                             String name,
+                             String ownerUsername,
+                             String filePath,
+                             LocalDateTime uploadTimestamp,
+                             int uploadCount,
+                             long contentSize,
+                             String contentHash,
+                             long version) {
+
+    static ScrollSnapshot of(DigitalScroll scroll, long version) {
+        return new ScrollSnapshot(scroll.getScrollId(),
+                scroll.getName(),
+                scroll.getOwnerUsername(),
+                scroll.getFilePath(),
+                scroll.getUploadTimestamp(),
+                scroll.getUploadCount(),
+                scroll.getContentSize(),
+                scroll.getContentHash(),
+                version);
+    }
+
+    public ScrollSnapshot withName(String newName) {
+        return new ScrollSnapshot(scrollId, newName, ownerUsername, filePath, uploadTimestamp, uploadCount,
+                contentSize, contentHash, version);
+    }
+
+    public ScrollSnapshot withOwnerUsername(String newOwner) {
+        return new ScrollSnapshot(scrollId, name, newOwner, filePath, uploadTimestamp, uploadCount,
+                contentSize, contentHash, version);
+    }
+
+    public ScrollSnapshot withFilePath(String newFilePath) {
+        return new ScrollSnapshot(scrollId, name, ownerUsername, newFilePath, uploadTimestamp, uploadCount,
+                contentSize, contentHash, version);
+    }
+
+    public ScrollSnapshot withContentFingerprint(long newSize, String newHash) {
+        return new ScrollSnapshot(scrollId, name, ownerUsername, filePath, uploadTimestamp, uploadCount,
+                newSize, newHash, version);
+    }
+
+    public ScrollSnapshot withUploadCount(int newUploadCount) {
+        return new ScrollSnapshot(scrollId, name, ownerUsername, filePath, uploadTimestamp, newUploadCount,
+                contentSize, contentHash, version);
+    }
+
+    DigitalScroll toScroll(DigitalScroll previous) {
+        if (!scrollId.equals(previous.getScrollId())) {
+            throw new IllegalArgumentException("Scroll ID cannot be changed.");
+        }
+        return new DigitalScroll(this, previous);
+    }
+}
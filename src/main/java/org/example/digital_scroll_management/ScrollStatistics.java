@@ -0,0 +1,39 @@
+package org.example.digital_scroll_management;
+
+public class ScrollStatistics {
+    static final ScrollStatistics EMPTY = new ScrollStatistics(0, 0, 0, 0);
+
+    private final int scrollCount;
+    private final long totalBytes;
+    private final long uploadCount;
+    private final long downloadCount;
+
+    ScrollStatistics(int scrollCount, long totalBytes, long uploadCount, long downloadCount) {
+        this.scrollCount = scrollCount;
+        this.totalBytes = totalBytes;
+        this.uploadCount = uploadCount;
+        this.downloadCount = downloadCount;
+    }
+
+    public int getScrollCount() {
+        return scrollCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getUploadCount() {
+        return uploadCount;
+    }
+
+    public long getDownloadCount() {
+        return downloadCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("scrolls=%d bytes=%d uploads=%d downloads=%d",
+                scrollCount, totalBytes, uploadCount, downloadCount);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.digital_scroll_management;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+class ScrollStatisticsIndex {
+    private final Aggregate global = new Aggregate();
+    private final Map<String, Aggregate> byOwner = new HashMap<>();
+    private final Map<String, Contribution> contributions = new HashMap<>();
+
+    synchronized void put(DigitalScroll scroll) {
+        Contribution previous = contributions.remove(scroll.getScrollId());
+        long downloads = previous == null ? scroll.getDownloadCount() : previous.downloads();
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        Contribution current = new Contribution(scroll.getOwnerUsername(),
+                Math.max(0, scroll.getContentSize()), scroll.getUploadCount(), downloads);
+        contributions.put(scroll.getScrollId(), current);
+        apply(current, 1);
+    }
+
+    synchronized void remove(String scrollId) {
+        Contribution previous = contributions.remove(scrollId);
+        if (previous != null) {
+            apply(previous, -1);
+        }
+    }
+
+    synchronized void recordDownload(String scrollId) {
+        Contribution previous = contributions.get(scrollId);
+        if (previous == null) {
+            return;
+        }
+        contributions.put(scrollId, previous.withDownloads(previous.downloads() + 1));
+        global.downloads++;
+        byOwner.get(previous.owner()).downloads++;
+    }
+
+    synchronized void syncDownloads(DigitalScroll scroll) {
+        Contribution previous = contributions.get(scroll.getScrollId());
+        if (previous == null) {
+            return;
+        }
+        long delta = scroll.getDownloadCount() - previous.downloads();
+        contributions.put(scroll.getScrollId(), previous.withDownloads(scroll.getDownloadCount()));
+        global.downloads += delta;
+        byOwner.get(previous.owner()).downloads += delta;
+    }
+
+    synchronized ScrollStatistics global() {
+        return global.toStatistics();
+    }
+
+    synchronized ScrollStatistics forOwner(String ownerUsername) {
+        Aggregate aggregate = byOwner.get(ownerUsername);
+        return aggregate == null ? ScrollStatistics.EMPTY : aggregate.toStatistics();
+    }
+
+    synchronized Map<String, ScrollStatistics> byOwner() {
+        Map<String, ScrollStatistics> result = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        for (Map.Entry<String, Aggregate> entry : byOwner.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toStatistics());
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        global.add(contribution, sign);
+        Aggregate owner = byOwner.computeIfAbsent(contribution.owner(), key -> new Aggregate());
+        owner.add(contribution, sign);
+        if (owner.scrolls == 0) {
+            byOwner.remove(contribution.owner());
+        }
+    }
+
+    private record Contribution(String owner, long bytes, long uploads, long downloads) {
+        Contribution withDownloads(long count) {
+            return new Contribution(owner, bytes, uploads, count);
+        }
+    }
+
+    private static final class Aggregate {
+        private int scrolls;
+        private long bytes;
+        private long uploads;
+        private long downloads;
+
+        void add(Contribution contribution, int sign) {
+            scrolls += sign;
+            bytes += sign * contribution.bytes();
+            uploads += sign * contribution.uploads();
+            downloads += sign * contribution.downloads();
+        }
+
+        ScrollStatistics toStatistics() {
+            return new ScrollStatistics(scrolls, bytes, uploads, downloads);
+        }
+    }
+}
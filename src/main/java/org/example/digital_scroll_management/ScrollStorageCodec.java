@@ -0,0 +1,321 @@
+package org.example.digital_scroll_management;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+class ScrollStorageCodec {
+    static final String SUFFIX = ".dfz";
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MAGIC = 0x53435A31;
+    private static final int SAMPLE_BLOCKS = 4;
+    private static final double MAX_RATIO = 0.9;
+
+    private final int level;
+
+    ScrollStorageCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    ScrollStorageCodec(int level) {
+        this.level = level;
+    }
+
+    static boolean isCompressed(Path stored) {
+        if (!hasSuffix(stored) || !Files.isRegularFile(stored)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(stored))) {
+            return in.readInt() == MAGIC && in.readInt() == BLOCK_SIZE;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static boolean hasSuffix(Path stored) {
+        return stored.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    static Path compressedPath(Path target) {
+        return target.resolveSibling(target.getFileName() + SUFFIX);
+    }
+
+    static Path rawPath(Path stored) {
+        String name = stored.getFileName().toString();
+        return hasSuffix(stored) ? stored.resolveSibling(name.substring(0, name.length() - SUFFIX.length())) : stored;
+    }
+
+    static String escapeExtension(String extension) {
+        return extension.equalsIgnoreCase(SUFFIX) ? "_" + extension.substring(1) : extension;
+    }
+
+    static long contentSize(Path stored) throws IOException {
+        if (!isCompressed(stored)) {
+            return Files.size(stored);
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(stored))) {
+            readHeader(in, stored);
+            return in.readLong();
+        }
+    }
+
+    static InputStream open(Path stored) throws IOException {
+        if (!isCompressed(stored)) {
+            return Files.newInputStream(stored);
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stored)));
+        try {
+            readHeader(in, stored);
+            in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BlockInputStream(in);
+    }
+
+    static void decode(Path stored,
+                       Path target,
+                       ScrollTransferEngine.ProgressListener listener,
+                       BooleanSupplier cancelRequested) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            long total = contentSize(stored);
+            long written = 0;
+            byte[] buffer = new byte[BLOCK_SIZE];
+            try (InputStream in = open(stored);
+                 FileChannel out = FileChannel.open(partial,
+                         StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    if (cancelRequested != null && cancelRequested.getAsBoolean()) {
+                        throw new CancellationException("Transfer cancelled: " + stored);
+                    }
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                    written += read;
+                    if (listener != null) {
+                        listener.onProgress(written, total);
+                    }
+                }
+                if (total == 0 && listener != null) {
+                    listener.onProgress(0, 0);
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    boolean isWorthCompressing(Path source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < BLOCK_SIZE / 16) {
+                return false;
+            }
+            long blocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            int samples = (int) Math.min(SAMPLE_BLOCKS, blocks);
+            byte[] raw = new byte[BLOCK_SIZE];
+            byte[] compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+            long rawTotal = 0;
+            long compressedTotal = 0;
+            Deflater deflater = new Deflater(level, true);
+            try {
+                for (int sample = 0; sample < samples; sample++) {
+                    long block = samples == 1 ? 0 : sample * (blocks - 1) / (samples - 1);
+                    int read = readFully(channel, block * BLOCK_SIZE, raw);
+                    rawTotal += read;
+                    compressedTotal += deflate(deflater, raw, read, compressed);
+                }
+            } finally {
+                deflater.end();
+            }
+            return compressedTotal <= rawTotal * MAX_RATIO;
+        }
+    }
+
+    long encode(Path source,
+                Path target,
+                ScrollTransferEngine.ProgressListener listener,
+                BooleanSupplier cancelRequested) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        Deflater deflater = new Deflater(level, true);
+        try {
+            long total;
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+                total = in.size();
+                out.writeInt(MAGIC);
+                out.writeInt(BLOCK_SIZE);
+                out.writeLong(total);
+                byte[] raw = new byte[BLOCK_SIZE];
+                byte[] compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+                long position = 0;
+                while (position < total) {
+                    if (cancelRequested != null && cancelRequested.getAsBoolean()) {
+                        throw new CancellationException("Transfer cancelled: " + source);
+                    }
+                    int read = readFully(in, position, raw);
+                    if (read <= 0) {
+                        break;
+                    }
+                    int length = deflate(deflater, raw, read, compressed);
+                    out.writeInt(read);
+                    out.writeInt(length);
+                    out.write(compressed, 0, length);
+                    position += read;
+                    if (listener != null) {
+                        listener.onProgress(position, total);
+                    }
+                }
+                if (total == 0 && listener != null) {
+                    listener.onProgress(0, 0);
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            return total;
+        } finally {
+            deflater.end();
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private static int deflate(Deflater deflater, byte[] raw, int length, byte[] compressed) {
+        deflater.reset();
+        deflater.setInput(raw, 0, length);
+        deflater.finish();
+        int total = 0;
+        while (!deflater.finished()) {
+            total += deflater.deflate(compressed, total, compressed.length - total);
+        }
+        return total;
+    }
+
+    private static int readFully(FileChannel channel, long position, byte[] buffer) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer);
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return target.position();
+    }
+
+    private static void readHeader(DataInputStream in, Path stored) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != BLOCK_SIZE) {
+            throw new IOException("Not a compressed scroll: " + stored);
+        }
+    }
+
+    private static final class BlockInputStream extends InputStream {
+        private final DataInputStream in;
+        private final Inflater inflater = new Inflater(true);
+        private byte[] compressed = new byte[BLOCK_SIZE];
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private int blockLength;
+        private int blockPosition;
+        private boolean finished;
+
+        BlockInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (blockPosition >= blockLength && !nextBlock()) {
+                return -1;
+            }
+            int count = Math.min(length, blockLength - blockPosition);
+            System.arraycopy(block, blockPosition, buffer, offset, count);
+            blockPosition += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            in.close();
+        }
+
+        private boolean nextBlock() throws IOException {
+            if (finished) {
+                return false;
+            }
+            int rawLength;
+            try {
+                rawLength = in.readInt();
+            } catch (EOFException e) {
+                finished = true;
+                return false;
+            }
+            int compressedLength = in.readInt();
+            if (rawLength <= 0 || rawLength > BLOCK_SIZE || compressedLength < 0) {
+                throw new IOException("Corrupt compressed scroll block.");
+            }
+            if (compressed.length < compressedLength) {
+                compressed = new byte[compressedLength];
+            }
+            in.readFully(compressed, 0, compressedLength);
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            int inflated = 0;
+            try {
+                while (inflated < rawLength) {
+                    int count = inflater.inflate(block, inflated, rawLength - inflated);
+                    if (count == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    inflated += count;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt compressed scroll block.", e);
+            }
+            if (inflated != rawLength) {
+                throw new IOException("Corrupt compressed scroll block.");
+            }
+            blockLength = rawLength;
+            blockPosition = 0;
+            return true;
+        }
+    }
+}
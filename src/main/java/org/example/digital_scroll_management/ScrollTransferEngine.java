@@ -0,0 +1,116 @@
+package org.example.digital_scroll_management;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+public class ScrollTransferEngine {
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    public interface ProgressListener {
+        void onProgress(long transferredBytes, long totalBytes);
+    }
+
+    private final long chunkSize;
+
+    public ScrollTransferEngine() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ScrollTransferEngine(long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public long transfer(Path source, Path target) throws IOException {
+        return transfer(source, target, null, null);
+    }
+
+    public long transfer(Path source,
+                         Path target,
+                         ProgressListener listener,
+                         BooleanSupplier cancelRequested) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long transferred = 0;
+        try {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(partial,
+                         StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                long total = in.size();
+                while (transferred < total) {
+                    if (cancelRequested != null && cancelRequested.getAsBoolean()) {
+                        throw new CancellationException("Transfer cancelled: " + source);
+                    }
+                    long length = Math.min(chunkSize, total - transferred);
+                    long written = in.transferTo(transferred, length, out);
+                    if (written <= 0) {
+                        written = copyBuffered(in, out, transferred, length);
+                    }
+                    if (written <= 0) {
+                        throw new IOException("Source ended after " + transferred + " of " + total + " bytes: " + source);
+                    }
+                    transferred += written;
+                    if (listener != null) {
+                        listener.onProgress(transferred, total);
+                    }
+                }
+                if (total == 0 && listener != null) {
+                    listener.onProgress(0, 0);
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            return transferred;
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private long copyBuffered(FileChannel in, FileChannel out, long position, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(length, STREAM_BUFFER_SIZE));
+        long copied = 0;
+        while (copied < length) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), length - copied));
+            int read = in.read(buffer, position + copied);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            copied += read;
+        }
+        return copied;
+    }
+
+    public long transferRange(FileChannel in, FileChannel out, long position, long length) throws IOException {
+        long copied = 0;
+        while (copied < length) {
+            long count = in.transferTo(position + copied, Math.min(chunkSize, length - copied), out.position(position + copied));
+            if (count <= 0) {
+                throw new IOException("Source ended after " + (position + copied) + " bytes.");
+            }
+            copied += count;
+        }
+        return copied;
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.digital_scroll_management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+class ScrollTrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<ScrollField, Map<String, NavigableSet<String>>> postingsByField = new EnumMap<>(ScrollField.class);
+    private final Map<String, Map<ScrollField, String>> indexedValuesById = new HashMap<>();
+
+    ScrollTrigramIndex() {
+        for (ScrollField field : ScrollField.values()) {
+            postingsByField.put(field, new HashMap<>());
+        }
+    }
+
+    void add(DigitalScroll scroll) {
+        Map<ScrollField, String> previous = indexedValuesById.get(scroll.getScrollId());
+        Map<ScrollField, String> current = new EnumMap<>(ScrollField.class);
+        current.put(ScrollField.SCROLL_ID, normalize(scroll.getScrollId()));
+        current.put(ScrollField.NAME, normalize(scroll.getName()));
+        current.put(ScrollField.OWNER, normalize(scroll.getOwnerUsername()));
+        for (ScrollField field : ScrollField.values()) {
+            String oldValue = previous == null ? null : previous.get(field);
+            String newValue = current.get(field);
+            if (previous != null && Objects.equals(oldValue, newValue)) {
+                continue;
+            }
+            unindexValue(field, oldValue, scroll.getScrollId());
+            indexValue(field, newValue, scroll.getScrollId());
+        }
+        indexedValuesById.put(scroll.getScrollId(), current);
+    }
+
+    void remove(String scrollId) {
+        Map<ScrollField, String> previous = indexedValuesById.remove(scrollId);
+        if (previous == null) {
+            return;
+        }
+        for (Map.Entry<ScrollField, String> entry : previous.entrySet()) {
+            unindexValue(entry.getKey(), entry.getValue(), scrollId);
+        }
+    }
+
+    int estimateCandidates(ScrollField field, String fragment) {
+        List<NavigableSet<String>> postings = postingsFor(field, fragment);
+        if (postings == null) {
+            return -1;
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (Set<String> posting : postings) {
+            estimate = Math.min(estimate, posting.size());
+        }
+        return estimate;
+    }
+
+    Set<String> findCandidates(ScrollField field, String fragment) {
+        List<NavigableSet<String>> postings = postingsFor(field, fragment);
+        if (postings == null) {
+            return null;
+        }
+        NavigableSet<String> smallest = smallest(postings);
+        Set<String> result = new HashSet<>();
+        for (String id : smallest) {
+            if (inAll(postings, smallest, id)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    Iterator<String> iterateCandidates(ScrollField field, String fragment, String afterId) {
+        List<NavigableSet<String>> postings = postingsFor(field, fragment);
+        if (postings == null) {
+            return null;
+        }
+        NavigableSet<String> smallest = smallest(postings);
+        NavigableSet<String> ids = afterId == null ? smallest : smallest.tailSet(afterId, false);
+        return ids.stream().filter(id -> inAll(postings, smallest, id)).iterator();
+    }
+
+    private NavigableSet<String> smallest(List<NavigableSet<String>> postings) {
+        NavigableSet<String> smallest = null;
+        for (NavigableSet<String> posting : postings) {
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private boolean inAll(List<NavigableSet<String>> postings, Set<String> skipped, String id) {
+        for (Set<String> posting : postings) {
+            if (posting != skipped && !posting.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<NavigableSet<String>> postingsFor(ScrollField field, String fragment) {
+        String normalized = normalize(fragment);
+        if (normalized == null || normalized.length() < GRAM_LENGTH) {
+            return null;
+        }
+        Map<String, NavigableSet<String>> postings = postingsByField.get(field);
+        List<NavigableSet<String>> result = new ArrayList<>();
+        for (String gram : grams(normalized)) {
+            NavigableSet<String> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of(Collections.emptyNavigableSet());
+            }
+            result.add(ids);
+        }
+        return result;
+    }
+
+    private void indexValue(ScrollField field, String value, String scrollId) {
+        if (value == null) {
+            return;
+        }
+        Map<String, NavigableSet<String>> postings = postingsByField.get(field);
+        for (String gram : grams(value)) {
+            postings.computeIfAbsent(gram, key -> new TreeSet<>()).add(scrollId);
+        }
+    }
+
+    private void unindexValue(ScrollField field, String value, String scrollId) {
+        if (value == null) {
+            return;
+        }
+        Map<String, NavigableSet<String>> postings = postingsByField.get(field);
+        for (String gram : grams(value)) {
+            NavigableSet<String> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(scrollId);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Set<String> grams(String value) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.digital_scroll_management;
+
+import java.time.LocalDateTime;
+
+public class ScrollVersion {
+    private final int version;
+    private final long size;
+    private final LocalDateTime supersededAt;
+
+    ScrollVersion(int version, long size, LocalDateTime supersededAt) {
+        this.version = version;
+        this.size = size;
+        this.supersededAt = supersededAt;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public LocalDateTime getSupersededAt() {
+        return supersededAt;
+    }
+
+    public boolean isCurrent() {
+        return supersededAt == null;
+    }
+}
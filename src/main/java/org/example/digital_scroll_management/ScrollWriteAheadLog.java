@@ -0,0 +1,127 @@
+package org.example.digital_scroll_management;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32;
+
+class ScrollWriteAheadLog {
+    static final String PUT = "PUT";
+    static final String DELETE = "DEL";
+
+    private static final int CHECKSUM_DIGITS = 8;
+    private static final char CHECKSUM_SEPARATOR = ':';
+    private static final String LEGACY_DELIMITER = "|";
+
+    private final Path logPath;
+    private int recordCount;
+
+    ScrollWriteAheadLog(Path logPath) {
+        this.logPath = logPath;
+    }
+
+    Path getLogPath() {
+        return logPath;
+    }
+
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    List<String> readRecords() {
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(logPath)) {
+            return records;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(logPath);
+            int validLength = 0;
+            int lineStart = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                String line = new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                if (!line.trim().isEmpty()) {
+                    String record = decode(line);
+                    if (record == null) {
+                        break;
+                    }
+                    records.add(record);
+                }
+                lineStart = i + 1;
+                validLength = lineStart;
+            }
+            if (validLength < bytes.length) {
+                try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                    channel.force(true);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read scroll log: " + logPath, e);
+        }
+        recordCount = records.size();
+        return records;
+    }
+
+    void append(List<String> records) {
+        StringBuilder batch = new StringBuilder();
+        for (String record : records) {
+            batch.append(checksum(record)).append(CHECKSUM_SEPARATOR).append(record).append(System.lineSeparator());
+        }
+        try {
+            Path parent = logPath.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(logPath,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            recordCount += records.size();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to append scroll log: " + logPath, e);
+        }
+    }
+
+    void truncate() {
+        try {
+            Files.deleteIfExists(logPath);
+            recordCount = 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to truncate scroll log: " + logPath, e);
+        }
+    }
+
+    private String decode(String line) {
+        if (line.startsWith(PUT + LEGACY_DELIMITER) || line.startsWith(DELETE + LEGACY_DELIMITER)) {
+            return line;
+        }
+        if (line.length() <= CHECKSUM_DIGITS || line.charAt(CHECKSUM_DIGITS) != CHECKSUM_SEPARATOR) {
+            return null;
+        }
+        String record = line.substring(CHECKSUM_DIGITS + 1);
+        return line.substring(0, CHECKSUM_DIGITS).equals(checksum(record)) ? record : null;
+    }
+
+    private static String checksum(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().toHexDigits((int) crc.getValue());
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.scroll_seeker;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.example.digital_scroll_management.DigitalScroll;
+import org.example.digital_scroll_management.ScrollPage;
+
+public class ScrollQueryPlan {
+    private final int catalogSize;
+    private final List<Step> intersectedSteps;
+    private final List<Step> verifiedSteps;
+    private final Predicate<DigitalScroll> filter;
+
+    ScrollQueryPlan(int catalogSize, List<Step> intersectedSteps, List<Step> verifiedSteps, Predicate<DigitalScroll> filter) {
+        this.catalogSize = catalogSize;
+        this.intersectedSteps = List.copyOf(intersectedSteps);
+        this.verifiedSteps = List.copyOf(verifiedSteps);
+        this.filter = filter;
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public boolean isFullScan() {
+        return intersectedSteps.isEmpty();
+    }
+
+    public List<Step> getIntersectedSteps() {
+        return intersectedSteps;
+    }
+
+    public List<Step> getVerifiedSteps() {
+        return verifiedSteps;
+    }
+
+    Predicate<DigitalScroll> getFilter() {
+        return filter;
+    }
+
+    public String explain() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Query plan over ").append(catalogSize).append(" scrolls: ");
+        builder.append(isFullScan() ? "full scan" : "index intersection");
+        for (int i = 0; i < intersectedSteps.size(); i++) {
+            builder.append("\n  ").append(i == 0 ? "drive  " : "probe  ").append(intersectedSteps.get(i));
+        }
+        for (Step step : verifiedSteps) {
+            builder.append("\n  verify ").append(step);
+        }
+        return builder.toString();
+    }
+
+    public static class Step {
+        private final String description;
+        private final int estimate;
+        private final Supplier<Collection<String>> lookup;
+        private final PageLookup pageLookup;
+
+        Step(String description, int estimate, Supplier<Collection<String>> lookup, PageLookup pageLookup) {
+            this.description = description;
+            this.estimate = estimate;
+            this.lookup = lookup;
+            this.pageLookup = pageLookup;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getEstimate() {
+            return estimate;
+        }
+
+        public boolean isIndexed() {
+            return estimate >= 0;
+        }
+
+        Collection<String> lookup() {
+            return lookup.get();
+        }
+
+        ScrollPage page(String cursor, int pageSize, Predicate<DigitalScroll> filter) {
+            return pageLookup.page(cursor, pageSize, filter);
+        }
+
+        @Override
+        public String toString() {
+            return description + (isIndexed() ? " (est. " + estimate + ")" : " (not indexable)");
+        }
+    }
+
+    interface PageLookup {
+        ScrollPage page(String cursor, int pageSize, Predicate<DigitalScroll> filter);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.scroll_seeker;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.example.digital_scroll_management.DigitalScroll;
+import org.example.digital_scroll_management.DigitalScrollService;
+import org.example.digital_scroll_management.ScrollField;
+
+class ScrollQueryPlanner {
+    private static final int INTERSECT_FACTOR = 8;
+
+    private final DigitalScrollService digitalScrollService;
+
+    ScrollQueryPlanner(DigitalScrollService digitalScrollService) {
+        this.digitalScrollService = digitalScrollService;
+    }
+
+    ScrollQueryPlan plan(String uploaderFilter,
+                         String scrollIdFilter,
+                         String nameFilter,
+                         LocalDate fromDate,
+                         LocalDate toDate,
+                         Predicate<DigitalScroll> filter) {
+        List<ScrollQueryPlan.Step> steps = new ArrayList<>();
+        addFragmentStep(steps, ScrollField.OWNER, "uploader", uploaderFilter);
+        addFragmentStep(steps, ScrollField.SCROLL_ID, "scroll ID", scrollIdFilter);
+        addFragmentStep(steps, ScrollField.NAME, "name", nameFilter);
+        if (fromDate != null || toDate != null) {
+            steps.add(new ScrollQueryPlan.Step(
+                    "upload date " + (fromDate == null ? "*" : fromDate) + ".." + (toDate == null ? "*" : toDate),
+                    digitalScrollService.countScrollsUploadedBetween(fromDate, toDate),
+                    () -> digitalScrollService.findScrollIdsUploadedBetween(fromDate, toDate),
+                    (cursor, pageSize, rowFilter) -> digitalScrollService.pageOfScrollsUploadedBetween(
+                            fromDate, toDate, cursor, pageSize, rowFilter)));
+        }
+
+        int catalogSize = digitalScrollService.countScrolls();
+        List<ScrollQueryPlan.Step> indexed = new ArrayList<>();
+        List<ScrollQueryPlan.Step> verified = new ArrayList<>();
+        for (ScrollQueryPlan.Step step : steps) {
+            (step.isIndexed() ? indexed : verified).add(step);
+        }
+        indexed.sort(Comparator.comparingInt(ScrollQueryPlan.Step::getEstimate));
+        if (indexed.isEmpty() || indexed.get(0).getEstimate() * 2L > catalogSize) {
+            verified.addAll(0, indexed);
+            return new ScrollQueryPlan(catalogSize, List.of(), verified, filter);
+        }
+        List<ScrollQueryPlan.Step> intersected = new ArrayList<>();
+        long driverEstimate = indexed.get(0).getEstimate();
+        for (ScrollQueryPlan.Step step : indexed) {
+            if (intersected.isEmpty() || step.getEstimate() <= driverEstimate * INTERSECT_FACTOR) {
+                intersected.add(step);
+            } else {
+                verified.add(step);
+            }
+        }
+        return new ScrollQueryPlan(catalogSize, intersected, verified, filter);
+    }
+
+    private void addFragmentStep(List<ScrollQueryPlan.Step> steps, ScrollField field, String label, String fragment) {
+        if (fragment == null || fragment.isEmpty()) {
+            return;
+        }
+        steps.add(new ScrollQueryPlan.Step(
+                label + " contains \"" + fragment + "\"",
+                digitalScrollService.estimateScrollsContaining(field, fragment),
+                () -> digitalScrollService.findScrollIdsContaining(field, fragment),
+                (cursor, pageSize, rowFilter) -> digitalScrollService.pageOfScrollsContaining(
+                        field, fragment, cursor, pageSize, rowFilter)));
+    }
+}
@@ -4,7 +4,6 @@ import java.awt.BorderLayout;
 import java.awt.GraphicsEnvironment;
 import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
 
@@ -16,8 +15,12 @@ import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
 
 import org.example.digital_scroll_management.DigitalScroll;
+import org.example.digital_scroll_management.ScrollPage;
 
 public class ScrollSeekerConsole {
+    private static final int PAGE_SIZE = 20;
+    private static final long PROGRESS_REPORT_BYTES = 64L * 1024 * 1024;
+
     private final Scanner scanner;
     private final ScrollSeekerService service;
 
@@ -27,10 +30,15 @@ public class ScrollSeekerConsole {
     }
 
     public void viewAndDownloadMenu(boolean allowDownload) {
+        viewAndDownloadMenu(allowDownload, false);
+    }
+
+    public void viewAndDownloadMenu(boolean allowDownload, boolean showQueryPlans) {
         String uploaderFilter = "";
         String scrollIdFilter = "";
         String nameFilter = "";
-        LocalDate dateFilter = null;
+        LocalDate fromDate = null;
+        LocalDate toDate = null;
         boolean stay = true;
         while (stay) {
             System.out.println("--------------------------------------");
@@ -46,7 +54,7 @@ public class ScrollSeekerConsole {
             System.out.println("5. Return");
             String choice = prompt("Select an option: ");
             switch (choice) {
-                case "1" -> listScrolls(uploaderFilter, scrollIdFilter, nameFilter, dateFilter);
+                case "1" -> listScrolls(uploaderFilter, scrollIdFilter, nameFilter, fromDate, toDate, showQueryPlans);
                 case "2" -> {
                     if (!allowDownload) {
                         System.out.println("Guests cannot download scrolls.");
@@ -59,18 +67,11 @@ public class ScrollSeekerConsole {
                     uploaderFilter = prompt("Filter uploader (leave blank for ANY): ");
                     scrollIdFilter = prompt("Filter scroll ID (leave blank for ANY): ");
                     nameFilter = prompt("Filter name (leave blank for ANY): ");
-                    String dateInput = prompt("Filter upload date (yyyy-mm-dd, blank for ANY): ");
-                    if (dateInput.isEmpty()) {
-                        dateFilter = null;
-                    } else {
-                        try {
-                            dateFilter = LocalDate.parse(dateInput);
-                        } catch (Exception ex) {
-                            System.out.println("Invalid date, clearing filter.");
-                            dateFilter = null;
-                        }
-                    }
-                    listScrolls(uploaderFilter, scrollIdFilter, nameFilter, dateFilter);
+                    String dateInput = prompt("Filter upload date (yyyy-mm-dd, from..to, or last N days as Nd; blank for ANY): ");
+                    LocalDate[] range = parseDateRange(dateInput);
+                    fromDate = range[0];
+                    toDate = range[1];
+                    listScrolls(uploaderFilter, scrollIdFilter, nameFilter, fromDate, toDate, showQueryPlans);
                 }
                 case "4" -> {
                     String id = prompt("Scroll ID to preview: ");
@@ -82,17 +83,58 @@ public class ScrollSeekerConsole {
         }
     }
 
+    private LocalDate[] parseDateRange(String input) {
+        if (input.isEmpty()) {
+            return new LocalDate[2];
+        }
+        try {
+            if (input.matches("\\d+[dD]")) {
+                int days = Integer.parseInt(input.substring(0, input.length() - 1));
+                if (days <= 0) {
+                    throw new IllegalArgumentException("Day count must be positive.");
+                }
+                LocalDate today = LocalDate.now();
+                return new LocalDate[]{today.minusDays(days - 1L), today};
+            }
+            int separator = input.indexOf("..");
+            if (separator < 0) {
+                LocalDate date = LocalDate.parse(input);
+                return new LocalDate[]{date, date};
+            }
+            String from = input.substring(0, separator).trim();
+            String to = input.substring(separator + 2).trim();
+            return new LocalDate[]{
+                    from.isEmpty() ? null : LocalDate.parse(from),
+                    to.isEmpty() ? null : LocalDate.parse(to)};
+        } catch (Exception ex) {
+            System.out.println("Invalid date, clearing filter.");
+            return new LocalDate[2];
+        }
+    }
+
     private void listScrolls(String uploader,
                              String scrollId,
                              String name,
-                             LocalDate date) {
-        List<DigitalScroll> rows = service.filterScrolls(uploader, scrollId, name, date);
-        if (rows.isEmpty()) {
+                             LocalDate fromDate,
+                             LocalDate toDate,
+                             boolean showQueryPlan) {
+        ScrollQueryPlan plan = service.explainQuery(uploader, scrollId, name, fromDate, toDate);
+        if (showQueryPlan) {
+            System.out.println(plan.explain());
+        }
+        ScrollPage page = service.filterScrollsPage(plan, null, PAGE_SIZE);
+        if (page.getItems().isEmpty()) {
             System.out.println("(no scrolls match filters)");
             return;
         }
-        for (DigitalScroll scroll : rows) {
-            System.out.println(formatScroll(scroll));
+        while (true) {
+            for (DigitalScroll scroll : page.getItems()) {
+                System.out.println(formatScroll(scroll));
+            }
+            if (!page.hasMore() || !prompt("Show next page? (y/n): ").equalsIgnoreCase("y")) {
+                return;
+            }
+            page = service.filterScrollsPage(plan, page.getNextCursor(), PAGE_SIZE);
         }
     }
 
@@ -150,7 +192,7 @@ public class ScrollSeekerConsole {
             return;
         }
         try {
-            service.downloadScroll(scroll, Path.of(path));
+            service.downloadScroll(scroll, Path.of(path), this::printProgress, null);
             System.out.println("Download completed: " + path);
         } catch (IllegalStateException ex) {
             System.out.println("Download failed: " + ex.getMessage());
@@ -192,6 +234,14 @@ public class ScrollSeekerConsole {
         return target[0];
     }
 
+    private void printProgress(long transferredBytes, long totalBytes) {
+        if (totalBytes < PROGRESS_REPORT_BYTES) {
+            return;
+        }
+        System.out.println("Downloaded " + (transferredBytes * 100 / totalBytes) + "% ("
+                + transferredBytes + " of " + totalBytes + " bytes)");
+    }
+
     private String formatScroll(DigitalScroll scroll) {
         return String.format("ID=%s | Name=%s | Owner=%s | Uploaded=%s",
                 scroll.getScrollId(),
@@ -5,111 +5,193 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 
 import org.example.digital_scroll_management.DigitalScroll;
 import org.example.digital_scroll_management.DigitalScrollService;
+import org.example.digital_scroll_management.ScrollOrder;
+import org.example.digital_scroll_management.ScrollPage;
+import org.example.digital_scroll_management.ScrollTransferEngine;
 
 public class ScrollSeekerService {
     private static final int PREVIEW_BYTES = 256;
 
     private final DigitalScrollService digitalScrollService;
+    private final ScrollQueryPlanner queryPlanner;
 
     public ScrollSeekerService(DigitalScrollService digitalScrollService) {
         this.digitalScrollService = digitalScrollService;
+        this.queryPlanner = new ScrollQueryPlanner(digitalScrollService);
     }
 
     public List<DigitalScroll> filterScrolls(String uploaderFilter,
                                              String scrollIdFilter,
                                              String nameFilter,
                                              LocalDate dateFilter) {
-        List<DigitalScroll> all = digitalScrollService.listAllScrolls();
+        return filterScrolls(uploaderFilter, scrollIdFilter, nameFilter, dateFilter, dateFilter);
+    }
+
+    public List<DigitalScroll> filterScrolls(String uploaderFilter,
+                                             String scrollIdFilter,
+                                             String nameFilter,
+                                             LocalDate fromDate,
+                                             LocalDate toDate) {
+        return filterScrolls(explainQuery(uploaderFilter, scrollIdFilter, nameFilter, fromDate, toDate));
+    }
+
+    public List<DigitalScroll> filterScrolls(ScrollQueryPlan plan) {
+        Predicate<DigitalScroll> filter = plan.getFilter();
+        if (plan.isFullScan()) {
+            return digitalScrollService.listScrolls(ScrollOrder.BY_ID, filter);
+        }
         List<DigitalScroll> result = new ArrayList<>();
-        for (DigitalScroll scroll : all) {
-            if (!matches(scroll, uploaderFilter, scrollIdFilter, nameFilter, dateFilter)) {
-                continue;
+        List<String> orderedIds = new ArrayList<>(intersectCandidates(plan));
+        Collections.sort(orderedIds);
+        for (String id : orderedIds) {
+            DigitalScroll scroll = digitalScrollService.getScroll(id);
+            if (scroll != null && filter.test(scroll)) {
+                result.add(scroll);
             }
-            result.add(scroll);
         }
         return result;
     }
 
+    public ScrollPage filterScrollsPage(String uploaderFilter,
+                                        String scrollIdFilter,
+                                        String nameFilter,
+                                        LocalDate fromDate,
+                                        LocalDate toDate,
+                                        String cursor,
+                                        int pageSize) {
+        return filterScrollsPage(explainQuery(uploaderFilter, scrollIdFilter, nameFilter, fromDate, toDate),
+                cursor, pageSize);
+    }
+
+    public ScrollPage filterScrollsPage(ScrollQueryPlan plan, String cursor, int pageSize) {
+        if (plan.isFullScan()) {
+            return digitalScrollService.listScrollsPage(ScrollOrder.BY_ID, cursor, pageSize, plan.getFilter());
+        }
+        return plan.getIntersectedSteps().get(0).page(cursor, pageSize, plan.getFilter());
+    }
+
+    public ScrollQueryPlan explainQuery(String uploaderFilter,
+                                        String scrollIdFilter,
+                                        String nameFilter,
+                                        LocalDate fromDate,
+                                        LocalDate toDate) {
+        return queryPlanner.plan(uploaderFilter, scrollIdFilter, nameFilter, fromDate, toDate,
+                scroll -> matches(scroll, uploaderFilter, scrollIdFilter, nameFilter, fromDate, toDate));
+    }
+
     public DigitalScroll findScroll(String scrollId) {
         return digitalScrollService.getScroll(scrollId);
     }
 
     public ScrollPreview buildPreview(DigitalScroll scroll) {
         Path path = Path.of(scroll.getFilePath());
-        long size = fileSize(path);
+        long size = contentSize(scroll, path);
         String summary = "ID: " + scroll.getScrollId()
                 + "\nName: " + scroll.getName()
                 + "\nOwner: " + scroll.getOwnerUsername()
                 + "\nUploaded: " + scroll.getUploadTimestamp()
                 + "\nFile: " + scroll.getFilePath()
                 + "\nSize: " + size + " bytes";
-        String hexSample = readHexSample(path, PREVIEW_BYTES);
+        String hexSample = readHexSample(scroll, path, PREVIEW_BYTES);
         return new ScrollPreview(summary, hexSample);
     }
 
     public void downloadScroll(DigitalScroll scroll, Path targetFile) {
-        Path source = Path.of(scroll.getFilePath());
+        downloadScroll(scroll, targetFile, null, null);
+    }
+
+    public void downloadScroll(DigitalScroll scroll,
+                               Path targetFile,
+                               ScrollTransferEngine.ProgressListener listener,
+                               BooleanSupplier cancelRequested) {
         try {
-            Files.createDirectories(targetFile.getParent());
-            Files.copy(source, targetFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            digitalScrollService.exportScroll(scroll, targetFile, listener, cancelRequested);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to download scroll to " + targetFile, e);
         }
         digitalScrollService.recordDownload(scroll);
     }
 
+    private Set<String> intersectCandidates(ScrollQueryPlan plan) {
+        Set<String> candidateIds = null;
+        for (ScrollQueryPlan.Step step : plan.getIntersectedSteps()) {
+            Collection<String> ids = step.lookup();
+            if (candidateIds == null) {
+                candidateIds = new HashSet<>(ids);
+            } else {
+                candidateIds.retainAll(ids instanceof Set ? ids : new HashSet<>(ids));
+            }
+            if (candidateIds.isEmpty()) {
+                break;
+            }
+        }
+        return candidateIds == null ? Set.of() : candidateIds;
+    }
+
     private boolean matches(DigitalScroll scroll,
                             String uploaderFilter,
                             String scrollIdFilter,
                             String nameFilter,
-                            LocalDate dateFilter) {
+                            LocalDate fromDate,
+                            LocalDate toDate) {
         if (uploaderFilter != null && !uploaderFilter.isEmpty()) {
-            if (!scroll.getOwnerUsername().toLowerCase().contains(uploaderFilter.toLowerCase())) {
+            if (!containsIgnoreCase(scroll.getOwnerUsername(), uploaderFilter)) {
                 return false;
             }
         }
         if (scrollIdFilter != null && !scrollIdFilter.isEmpty()) {
-            if (!scroll.getScrollId().toLowerCase().contains(scrollIdFilter.toLowerCase())) {
+            if (!containsIgnoreCase(scroll.getScrollId(), scrollIdFilter)) {
                 return false;
             }
         }
         if (nameFilter != null && !nameFilter.isEmpty()) {
-            if (!scroll.getName().toLowerCase().contains(nameFilter.toLowerCase())) {
+            if (!containsIgnoreCase(scroll.getName(), nameFilter)) {
                 return false;
             }
         }
-        if (dateFilter != null) {
-            LocalDateTime uploaded = scroll.getUploadTimestamp();
-            if (!uploaded.toLocalDate().equals(dateFilter)) {
-                return false;
-            }
+        LocalDate uploaded = scroll.getUploadTimestamp().toLocalDate();
+        if (fromDate != null && uploaded.isBefore(fromDate)) {
+            return false;
+        }
+        if (toDate != null && uploaded.isAfter(toDate)) {
+            return false;
         }
         return true;
     }
 
-    private long fileSize(Path path) {
+    private boolean containsIgnoreCase(String value, String fragment) {
+        return value.toLowerCase(Locale.ROOT).contains(fragment.toLowerCase(Locale.ROOT));
+    }
+
+    private long contentSize(DigitalScroll scroll, Path path) {
         try {
             if (Files.exists(path)) {
-                return Files.size(path);
+                return digitalScrollService.getScrollContentSize(scroll);
             }
         } catch (IOException ignored) {
         }
         return 0;
     }
 
-    private String readHexSample(Path path, int maxBytes) {
+    private String readHexSample(DigitalScroll scroll, Path path, int maxBytes) {
         if (!Files.exists(path)) {
             return "(file not found)";
         }
         byte[] buffer = new byte[maxBytes];
         int read = 0;
-        try (InputStream input = Files.newInputStream(path)) {
+        try (InputStream input = digitalScrollService.openScrollContent(scroll)) {
             read = input.read(buffer);
         } catch (IOException e) {
             return "(failed to read file)";
@@ -0,0 +1,60 @@
+package org.example.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+public class ShardedLayout {
+    public static final ShardedLayout FLAT = new ShardedLayout(0, 0);
+    public static final ShardedLayout TWO_LEVEL = new ShardedLayout(2, 2);
+
+    private final int levels;
+    private final int charsPerLevel;
+
+    public ShardedLayout(int levels, int charsPerLevel) {
+        if (levels < 0 || levels > 4) {
+            throw new IllegalArgumentException("Shard levels must be between 0 and 4.");
+        }
+        if (levels > 0 && (charsPerLevel < 1 || charsPerLevel > 4)) {
+            throw new IllegalArgumentException("Shard width must be between 1 and 4 hex characters.");
+        }
+        this.levels = levels;
+        this.charsPerLevel = levels == 0 ? 0 : charsPerLevel;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    public int getCharsPerLevel() {
+        return charsPerLevel;
+    }
+
+    public boolean isFlat() {
+        return levels == 0;
+    }
+
+    public Path resolve(Path root, String shardKey, String fileName) {
+        Path directory = root;
+        for (int level = 0; level < levels; level++) {
+            int start = level * charsPerLevel;
+            directory = directory.resolve(shardKey.substring(start, start + charsPerLevel));
+        }
+        return directory.resolve(fileName);
+    }
+
+    public Path resolveHashed(Path root, String key, String fileName) {
+        return isFlat() ? root.resolve(fileName) : resolve(root, hashKey(key), fileName);
+    }
+
+    public static String hashKey(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available.", e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class SnapshotReader {
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    public interface RecordDecoder<T> {
+        T decode(Record record);
+    }
+
+    public static class Record {
+        private final long[] fields;
+        private final String[] strings;
+        private final int formatVersion;
+
+        Record(long[] fields, String[] strings, int formatVersion) {
+            this.fields = fields;
+            this.strings = strings;
+            this.formatVersion = formatVersion;
+        }
+
+        public int getFieldCount() {
+            return fields.length;
+        }
+
+        public long getLong(int field) {
+            return fields[field];
+        }
+
+        public int getInt(int field) {
+            return (int) fields[field];
+        }
+
+        public String getString(int field) {
+            long index = fields[field];
+            return index == SnapshotWriter.NULL_STRING ? null : strings[(int) index];
+        }
+
+        public LocalDateTime getTimestamp(int secondsField, int nanosField) {
+            if (formatVersion == SnapshotWriter.MILLIS_FORMAT_VERSION) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(fields[secondsField]), ZoneOffset.UTC);
+            }
+            return LocalDateTime.ofEpochSecond(fields[secondsField], (int) fields[nanosField], ZoneOffset.UTC);
+        }
+    }
+
+    private SnapshotReader() {
+    }
+
+    public static <T> List<T> read(Path path, RecordDecoder<T> decoder) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer, decoder, path);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read snapshot: " + path, e);
+        }
+    }
+
+    private static <T> List<T> decode(ByteBuffer buffer, RecordDecoder<T> decoder, Path path) {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != SnapshotWriter.MAGIC) {
+            throw new IllegalStateException("Not a scroll system snapshot: " + path);
+        }
+        int version = buffer.getInt(4);
+        if (version != SnapshotWriter.FORMAT_VERSION && version != SnapshotWriter.MILLIS_FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported snapshot version " + version + ": " + path);
+        }
+        int fieldCount = buffer.getInt(8);
+        int recordCount = buffer.getInt(12);
+        int stringCount = buffer.getInt(16);
+
+        int offsetsStart = HEADER_BYTES;
+        int tableStart = offsetsStart + (stringCount + 1) * Long.BYTES;
+        int recordsStart = tableStart + (int) buffer.getLong(offsetsStart + stringCount * Long.BYTES);
+
+        String[] strings = new String[stringCount];
+        IntStream.range(0, chunkCount(stringCount)).parallel().forEach(chunk -> {
+            ByteBuffer view = buffer.duplicate();
+            int end = Math.min(stringCount, (chunk + 1) * SnapshotWriter.CHUNK_SIZE);
+            for (int i = chunk * SnapshotWriter.CHUNK_SIZE; i < end; i++) {
+                int position = tableStart + (int) view.getLong(offsetsStart + i * Long.BYTES);
+                byte[] bytes = new byte[view.getInt(position)];
+                view.get(position + Integer.BYTES, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        });
+
+        Object[] decoded = new Object[recordCount];
+        int recordBytes = fieldCount * Long.BYTES;
+        IntStream.range(0, chunkCount(recordCount)).parallel().forEach(chunk -> {
+            ByteBuffer view = buffer.duplicate();
+            int end = Math.min(recordCount, (chunk + 1) * SnapshotWriter.CHUNK_SIZE);
+            for (int i = chunk * SnapshotWriter.CHUNK_SIZE; i < end; i++) {
+                long[] fields = new long[fieldCount];
+                int position = recordsStart + i * recordBytes;
+                for (int f = 0; f < fieldCount; f++) {
+                    fields[f] = view.getLong(position + f * Long.BYTES);
+                }
+                decoded[i] = decoder.decode(new Record(fields, strings, version));
+            }
+        });
+        @SuppressWarnings("unchecked")
+        List<T> result = (List<T>) Arrays.asList(decoded);
+        return result;
+    }
+
+    private static int chunkCount(int count) {
+        return (count + SnapshotWriter.CHUNK_SIZE - 1) / SnapshotWriter.CHUNK_SIZE;
+    }
+}
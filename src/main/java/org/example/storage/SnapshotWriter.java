@@ -0,0 +1,99 @@
+package org.example.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SnapshotWriter {
+    static final int MAGIC = 0x56534E50;
+    static final int FORMAT_VERSION = 2;
+    static final int MILLIS_FORMAT_VERSION = 1;
+    static final int CHUNK_SIZE = 4096;
+    static final long NULL_STRING = -1;
+
+    private final int fieldCount;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<long[]> records = new ArrayList<>();
+
+    public SnapshotWriter(int fieldCount) {
+        this.fieldCount = fieldCount;
+    }
+
+    public long string(String value) {
+        if (value == null) {
+            return NULL_STRING;
+        }
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndex.put(value, index);
+        }
+        return index;
+    }
+
+    public long timestampSeconds(LocalDateTime value) {
+        return value.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public long timestampNanos(LocalDateTime value) {
+        return value.getNano();
+    }
+
+    public void addRecord(long... fields) {
+        if (fields.length != fieldCount) {
+            throw new IllegalArgumentException("Expected " + fieldCount + " fields but got " + fields.length);
+        }
+        records.add(fields);
+    }
+
+    public void writeTo(Path path) {
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String value : strings) {
+            encoded.add(value.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tempPath = Path.of(path.toString() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(fieldCount);
+                out.writeInt(records.size());
+                out.writeInt(strings.size());
+                long offset = 0;
+                for (byte[] bytes : encoded) {
+                    out.writeLong(offset);
+                    offset += Integer.BYTES + bytes.length;
+                }
+                out.writeLong(offset);
+                for (byte[] bytes : encoded) {
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                for (long[] record : records) {
+                    for (long field : record) {
+                        out.writeLong(field);
+                    }
+                }
+            }
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write snapshot: " + path, e);
+        }
+    }
+}
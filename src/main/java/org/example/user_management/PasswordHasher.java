@@ -3,6 +3,7 @@ package org.example.user_management;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 public class PasswordHasher {
     public String hash(String rawPassword) {
@@ -38,10 +39,6 @@ public class PasswordHasher {
     }
 
     private String toHex(byte[] bytes) {
-        StringBuilder builder = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) {
-            builder.append(String.format("%02x", b));
-        }
-        return builder.toString();
+        return HexFormat.of().formatHex(bytes);
     }
 }
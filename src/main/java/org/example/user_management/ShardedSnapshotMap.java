@@ -0,0 +1,72 @@
+package org.example.user_management;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+final class ShardedSnapshotMap<V> {
+    private static final int SHARD_COUNT = 256;
+
+    private final Map<String, V>[] shards;
+    private final int size;
+
+    private ShardedSnapshotMap(Map<String, V>[] shards, int size) {
+        this.shards = shards;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> ShardedSnapshotMap<V> empty() {
+        Map<String, V>[] shards = new Map[SHARD_COUNT];
+        Arrays.fill(shards, Map.of());
+        return new ShardedSnapshotMap<>(shards, 0);
+    }
+
+    V get(String key) {
+        return key == null ? null : shards[shardOf(key)].get(key);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEachValue(Consumer<V> action) {
+        for (Map<String, V> shard : shards) {
+            shard.values().forEach(action);
+        }
+    }
+
+    ShardedSnapshotMap<V> with(Map<String, V> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        Map<Integer, List<Map.Entry<String, V>>> changesByShard = new HashMap<>();
+        for (Map.Entry<String, V> change : changes.entrySet()) {
+            changesByShard.computeIfAbsent(shardOf(change.getKey()), key -> new ArrayList<>()).add(change);
+        }
+        Map<String, V>[] next = shards.clone();
+        int nextSize = size;
+        for (Map.Entry<Integer, List<Map.Entry<String, V>>> entry : changesByShard.entrySet()) {
+            Map<String, V> shard = new HashMap<>(shards[entry.getKey()]);
+            nextSize -= shard.size();
+            for (Map.Entry<String, V> change : entry.getValue()) {
+                if (change.getValue() == null) {
+                    shard.remove(change.getKey());
+                } else {
+                    shard.put(change.getKey(), change.getValue());
+                }
+            }
+            nextSize += shard.size();
+            next[entry.getKey()] = shard.isEmpty() ? Map.of() : Collections.unmodifiableMap(shard);
+        }
+        return new ShardedSnapshotMap<>(next, nextSize);
+    }
+
+    private static int shardOf(String key) {
+        return Math.floorMod(key.hashCode(), SHARD_COUNT);
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.user_management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class UserBatch {
+    private final List<Operation> operations = new ArrayList<>();
+
+    public UserBatch save(User user) {
+        if (user == null || user.getUsername() == null || user.getUsername().isEmpty()) {
+            throw new IllegalArgumentException("Username is required.");
+        }
+        operations.add(new Operation(user, user.getUsername()));
+        return this;
+    }
+
+    public UserBatch delete(String username) {
+        if (username == null) {
+            throw new IllegalArgumentException("Username is required.");
+        }
+        operations.add(new Operation(null, username));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    List<Operation> operations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    record Operation(User user, String username) {
+        boolean isDelete() {
+            return user == null;
+        }
+    }
+}
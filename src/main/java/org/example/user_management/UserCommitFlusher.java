@@ -0,0 +1,114 @@
+package org.example.user_management;
+
+import java.util.concurrent.CompletableFuture;
+
+class UserCommitFlusher implements Runnable {
+    private final Runnable writer;
+    private final long commitWindowMillis;
+    private final Thread thread;
+    private CompletableFuture<Void> pending;
+    private CompletableFuture<Void> inFlight;
+    private CompletableFuture<Void> observed;
+    private RuntimeException unreportedFailure;
+    private boolean closed;
+
+    UserCommitFlusher(Runnable writer, long commitWindowMillis) {
+        this.writer = writer;
+        this.commitWindowMillis = commitWindowMillis;
+        this.thread = new Thread(this, "user-repository-flusher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    synchronized CompletableFuture<Void> markDirty() {
+        if (closed) {
+            throw new IllegalStateException("User repository is closed.");
+        }
+        if (pending == null) {
+            pending = new CompletableFuture<>();
+            notifyAll();
+        }
+        return pending;
+    }
+
+    synchronized CompletableFuture<Void> requestFlush() {
+        CompletableFuture<Void> future = pending != null ? pending : inFlight;
+        if (future == null) {
+            future = CompletableFuture.completedFuture(null);
+        }
+        observed = future;
+        RuntimeException failure = unreportedFailure;
+        unreportedFailure = null;
+        notifyAll();
+        if (failure == null) {
+            return future;
+        }
+        return future.thenCompose(ignored -> CompletableFuture.failedFuture(failure));
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        RuntimeException failure;
+        synchronized (this) {
+            failure = unreportedFailure;
+            unreportedFailure = null;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("User data was not saved before closing.", failure);
+        }
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            CompletableFuture<Void> batch;
+            synchronized (this) {
+                while (pending == null && !closed) {
+                    waitQuietly(0);
+                }
+                if (pending == null) {
+                    return;
+                }
+                if (!closed) {
+                    waitQuietly(commitWindowMillis);
+                }
+                batch = pending;
+                pending = null;
+                inFlight = batch;
+            }
+            RuntimeException failure = null;
+            try {
+                writer.run();
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            synchronized (this) {
+                if (inFlight == batch) {
+                    inFlight = null;
+                }
+                unreportedFailure = failure != null && observed != batch ? failure : null;
+            }
+            if (failure == null) {
+                batch.complete(null);
+            } else {
+                batch.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.user_management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class UserImportReport {
+    private final List<RowError> errors = new ArrayList<>();
+    private int importedCount;
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public int getRejectedCount() {
+        return errors.size();
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void imported(int count) {
+        importedCount += count;
+    }
+
+    void reject(long lineNumber, String username, String message) {
+        errors.add(new RowError(lineNumber, username, message));
+    }
+
+    public record RowError(long lineNumber, String username, String message) {
+        @Override
+        public String toString() {
+            return "line " + lineNumber + (username == null || username.isBlank() ? "" : " (" + username + ")")
+                    + ": " + message;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.awt.GraphicsEnvironment;
 import java.awt.HeadlessException;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.concurrent.CountDownLatch;
 
@@ -24,13 +25,22 @@ import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 
 import org.example.digital_scroll_management.DigitalScroll;
 import org.example.digital_scroll_management.DigitalScrollService;
+import org.example.digital_scroll_management.DownloadWindow;
+import org.example.digital_scroll_management.ScrollOrder;
+import org.example.digital_scroll_management.ScrollDownloadTrend;
+import org.example.digital_scroll_management.ScrollPage;
+import org.example.digital_scroll_management.ScrollRanking;
+import org.example.digital_scroll_management.ScrollStatistics;
 import org.example.scroll_seeker.ScrollSeekerConsole;
 
 public class UserManagementUI {
+    private static final int SCROLL_PAGE_SIZE = 20;
+    private static final int TOP_SCROLLS_LIMIT = 20;
+    private static final int LEADERBOARD_SIZE = 5;
+
     private final Scanner scanner;
     private final UserManager userManager;
     private final DigitalScrollService scrollService;
@@ -133,7 +143,7 @@ public class UserManagementUI {
                 case "1" -> showProfile();
                 case "2" -> updateProfileMenu();
                 case "3" -> scrollManagementMenu();
-                case "4" -> scrollSeekerConsole.viewAndDownloadMenu(true);
+                case "4" -> scrollSeekerConsole.viewAndDownloadMenu(true, currentUser.getUserType() == UserType.ADMIN);
                 case "5" -> {
                     System.out.println("Returning to main menu.");
                     stay = false;
@@ -224,6 +234,7 @@ public class UserManagementUI {
             System.out.println("8. Delete user");
             System.out.println("9. View scroll stats");
             System.out.println("10. Return");
+            System.out.println("11. Import users from CSV");
             String choice = prompt("Select an option: ");
             switch (choice) {
                 case "1" -> listAllScrolls();
@@ -236,6 +247,7 @@ public class UserManagementUI {
                 case "8" -> deleteUserByAdmin();
                 case "9" -> showStats();
                 case "10" -> stay = false;
+                case "11" -> importUsersByAdmin();
                 default -> System.out.println("Invalid option, please try again.");
             }
         }
@@ -281,7 +293,7 @@ public class UserManagementUI {
         }
         try {
             String fullName = prompt("New full name: ");
-            userManager.updateFullName(currentUser, fullName);
+            currentUser = userManager.updateFullName(currentUser, fullName);
             System.out.println("Full name updated.");
         } catch (IllegalArgumentException ex) {
             System.out.println("Update failed: " + ex.getMessage());
@@ -294,7 +306,7 @@ public class UserManagementUI {
         }
         try {
             String email = prompt("New email: ");
-            userManager.updateEmail(currentUser, email);
+            currentUser = userManager.updateEmail(currentUser, email);
             System.out.println("Email updated.");
         } catch (IllegalArgumentException ex) {
             System.out.println("Update failed: " + ex.getMessage());
@@ -307,7 +319,7 @@ public class UserManagementUI {
         }
         try {
             String phone = prompt("New phone: ");
-            userManager.updatePhone(currentUser, phone);
+            currentUser = userManager.updatePhone(currentUser, phone);
             System.out.println("Phone updated.");
         } catch (IllegalArgumentException ex) {
             System.out.println("Update failed: " + ex.getMessage());
@@ -320,7 +332,7 @@ public class UserManagementUI {
         }
         try {
             String password = prompt("New password: ");
-            userManager.changePassword(currentUser, password);
+            currentUser = userManager.changePassword(currentUser, password);
             System.out.println("Password updated.");
         } catch (IllegalArgumentException ex) {
             System.out.println("Update failed: " + ex.getMessage());
@@ -333,7 +345,7 @@ public class UserManagementUI {
         }
         try {
             String customId = prompt("New custom ID: ");
-            userManager.updateCustomId(currentUser, customId);
+            currentUser = userManager.updateCustomId(currentUser, customId);
             System.out.println("Custom ID updated.");
         } catch (IllegalArgumentException ex) {
             System.out.println("Update failed: " + ex.getMessage());
@@ -359,21 +371,7 @@ public class UserManagementUI {
                 System.out.println("Selected file is not valid.");
                 return;
             }
-            Path storageDir = Paths.get("data", "profile_pictures");
-            Files.createDirectories(storageDir);
-            String fileName = source.getFileName().toString();
-            String extension = "";
-            int dotIndex = fileName.lastIndexOf('.');
-            if (dotIndex >= 0) {
-                extension = fileName.substring(dotIndex);
-            }
-            String sanitizedBase = currentUser.getUsername().replaceAll("[^a-zA-Z0-9-_]", "_");
-            if (sanitizedBase.isEmpty()) {
-                sanitizedBase = "user";
-            }
-            Path target = storageDir.resolve(sanitizedBase + extension);
-            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-            userManager.updateProfilePicture(currentUser, target.toAbsolutePath().toString());
+            currentUser = userManager.storeProfilePicture(currentUser, source);
             System.out.println("Profile picture saved.");
         } catch (InvalidPathException ex) {
             System.out.println("Selected path is invalid: " + ex.getReason());
@@ -412,6 +410,24 @@ public class UserManagementUI {
         }
     }
 
+    private void importUsersByAdmin() {
+        String file = prompt("CSV file path (username,password,email,phone,fullName,customId[,userType]): ");
+        try {
+            Path source = Paths.get(file.trim());
+            if (!Files.isRegularFile(source)) {
+                System.out.println("Import failed: file not found.");
+                return;
+            }
+            UserImportReport report = userManager.importUsers(source);
+            System.out.println("Imported " + report.getImportedCount() + " users, rejected " + report.getRejectedCount() + ".");
+            for (UserImportReport.RowError error : report.getErrors()) {
+                System.out.println(" - " + error);
+            }
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            System.out.println("Import failed: " + ex.getMessage());
+        }
+    }
+
     private void deleteUserByAdmin() {
         String username = prompt("Username to delete: ");
         try {
@@ -423,10 +439,34 @@ public class UserManagementUI {
     }
 
     private void showStats() {
-        List<String> stats = scrollService.getScrollStatistics();
-        System.out.println("Scroll stats:");
-        for (String line : stats) {
-            System.out.println(" - " + line);
+        System.out.println("Scroll stats: " + scrollService.getCatalogStatistics());
+        for (Map.Entry<String, ScrollStatistics> entry : scrollService.getStatisticsByOwner().entrySet()) {
+            System.out.println(" - owner=" + entry.getKey() + " " + entry.getValue());
+        }
+        printLeaderboard("Most downloaded", ScrollRanking.MOST_DOWNLOADED);
+        printLeaderboard("Most updated", ScrollRanking.MOST_UPDATED);
+        printLeaderboard("Recently updated", ScrollRanking.RECENTLY_UPDATED);
+        List<ScrollDownloadTrend> trending = scrollService.topDownloadedScrolls(DownloadWindow.LAST_HOUR, TOP_SCROLLS_LIMIT);
+        if (trending.isEmpty()) {
+            return;
+        }
+        System.out.println("Top " + TOP_SCROLLS_LIMIT + " scrolls in the last hour (per-minute trend):");
+        for (ScrollDownloadTrend trend : trending) {
+            System.out.println(String.format(" - %s downloads=%d [%s]",
+                    trend.getScrollId(), trend.getTotal(), trend.sparkline()));
+        }
+    }
+
+    private void printLeaderboard(String title, ScrollRanking ranking) {
+        List<DigitalScroll> leaders = scrollService.topScrolls(ranking, LEADERBOARD_SIZE);
+        if (leaders.isEmpty()) {
+            return;
+        }
+        System.out.println(title + ":");
+        int rank = 1;
+        for (DigitalScroll scroll : leaders) {
+            System.out.println(String.format(" %d. id=%s name=%s uploads=%d downloads=%d", rank++,
+                    scroll.getScrollId(), scroll.getName(), scroll.getUploadCount(), scroll.getDownloadCount()));
         }
     }
 
@@ -498,14 +538,20 @@ public class UserManagementUI {
     }
 
     private void listAllScrolls() {
-        List<DigitalScroll> scrolls = scrollService.listAllScrolls();
-        if (scrolls.isEmpty()) {
+        ScrollPage page = scrollService.listScrollsPage(ScrollOrder.BY_ID, null, SCROLL_PAGE_SIZE);
+        if (page.getItems().isEmpty()) {
             System.out.println("There are no scrolls in the library.");
             return;
         }
         System.out.println("All scrolls:");
-        for (DigitalScroll scroll : scrolls) {
-            System.out.println(" - " + formatScrollLine(scroll));
+        while (true) {
+            for (DigitalScroll scroll : page.getItems()) {
+                System.out.println(" - " + formatScrollLine(scroll));
+            }
+            if (!page.hasMore() || !prompt("Show next page? (y/n): ").equalsIgnoreCase("y")) {
+                return;
+            }
+            page = scrollService.listScrollsPage(ScrollOrder.BY_ID, page.getNextCursor(), SCROLL_PAGE_SIZE);
         }
     }
 
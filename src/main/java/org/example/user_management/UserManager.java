@@ -1,21 +1,55 @@
 package org.example.user_management;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
+import org.example.storage.ShardedLayout;
+
 public class UserManager {
     private static final String DEFAULT_ADMIN_USERNAME = "admin";
     private static final String DEFAULT_ADMIN_PASSWORD = "admin123";
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
     private static final Pattern PHONE_PATTERN = Pattern.compile("^0461\\d{6,11}$");
+    private static final int IMPORT_BATCH_SIZE = 5000;
+    private static final List<String> IMPORT_COLUMNS =
+            List.of("username", "password", "email", "phone", "fullname", "customid", "usertype");
 
     private final UserRepository repository;
     private final PasswordHasher passwordHasher;
+    private final Path profilePictureDirectory;
+    private final ShardedLayout profilePictureLayout;
 
     public UserManager(UserRepository repository, PasswordHasher passwordHasher) {
+        this(repository, passwordHasher, Path.of("data", "profile_pictures"), ShardedLayout.FLAT);
+    }
+
+    public UserManager(UserRepository repository,
+                       PasswordHasher passwordHasher,
+                       Path profilePictureDirectory,
+                       ShardedLayout profilePictureLayout) {
         this.repository = repository;
         this.passwordHasher = passwordHasher;
+        this.profilePictureDirectory = profilePictureDirectory;
+        this.profilePictureLayout = profilePictureLayout;
     }
 
     public void ensureDefaultAdmin() {
@@ -54,18 +88,217 @@ public class UserManager {
                            String fullName,
                            String customId,
                            UserType userType) {
-        String safeUsername = requireValue(username, "Username");
-        String safePassword = requireValue(password, "Password");
-        String safeEmail = requireValue(email, "Email");
+        User newUser = prepareUser(new UserRegistration(username, password, email, phone, fullName, customId, userType));
+        repository.save(newUser);
+        return newUser;
+    }
+
+    public List<User> createUsers(List<UserRegistration> registrations) {
+        List<User> users = new ArrayList<>(registrations.size());
+        Set<String> usernames = new HashSet<>();
+        for (UserRegistration registration : registrations) {
+            User user = prepareUser(registration);
+            if (!usernames.add(user.getUsername())) {
+                throw new IllegalArgumentException("Username already exists.");
+            }
+            users.add(user);
+        }
+        repository.saveAll(users);
+        return users;
+    }
+
+    public void deleteUsers(Collection<String> usernames) {
+        List<String> targets = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            targets.add(requireDeletableUser(username).getUsername());
+        }
+        repository.deleteAll(targets);
+    }
+
+    public UserImportReport importUsers(Path csvFile) {
+        return importUsers(csvFile, Runtime.getRuntime().availableProcessors(), IMPORT_BATCH_SIZE);
+    }
+
+    public UserImportReport importUsers(Path csvFile, int parallelism, int batchSize) {
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Parallelism and batch size must be positive.");
+        }
+        UserImportReport report = new UserImportReport();
+        Set<String> usernames = new HashSet<>();
+        Set<String> customIds = new HashSet<>();
+        List<PendingImport> batch = new ArrayList<>(batchSize);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (UserCsvReader reader = new UserCsvReader(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8))) {
+            UserCsvReader.Row row = reader.next();
+            int[] columns = row == null ? null : importColumns(row);
+            if (columns == null) {
+                columns = new int[]{0, 1, 2, 3, 4, 5, 6};
+            } else {
+                row = reader.next();
+            }
+            for (; row != null; row = reader.next()) {
+                String username = row.field(columns[0]);
+                try {
+                    UserRegistration registration = validateRegistration(toRegistration(row, columns));
+                    if (!usernames.add(registration.username())) {
+                        throw new IllegalArgumentException("Username already exists.");
+                    }
+                    if (!customIds.add(UserRepository.normalizeCustomId(registration.customId()))) {
+                        usernames.remove(registration.username());
+                        throw new IllegalArgumentException("Custom ID must be unique.");
+                    }
+                    batch.add(new PendingImport(row.lineNumber(), registration));
+                } catch (IllegalArgumentException e) {
+                    report.reject(row.lineNumber(), username, e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    commitImport(batch, executor, parallelism, report);
+                    batch.clear();
+                    usernames.clear();
+                    customIds.clear();
+                }
+            }
+            commitImport(batch, executor, parallelism, report);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read user import: " + csvFile, e);
+        } finally {
+            executor.shutdown();
+        }
+        return report;
+    }
+
+    private int[] importColumns(UserCsvReader.Row header) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.fields().size(); i++) {
+            positions.put(header.fields().get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!positions.containsKey(IMPORT_COLUMNS.get(0))) {
+            return null;
+        }
+        int[] columns = new int[IMPORT_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            Integer position = positions.get(IMPORT_COLUMNS.get(i));
+            if (position == null && i < columns.length - 1) {
+                throw new IllegalArgumentException("Import file is missing the '" + IMPORT_COLUMNS.get(i) + "' column.");
+            }
+            columns[i] = position == null ? -1 : position;
+        }
+        return columns;
+    }
+
+    private UserRegistration toRegistration(UserCsvReader.Row row, int[] columns) {
+        String type = row.field(columns[6]);
+        UserType userType = UserType.GENERAL;
+        if (type != null && !type.isBlank()) {
+            try {
+                userType = UserType.valueOf(type.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid user type.");
+            }
+            if (userType == UserType.GUEST) {
+                throw new IllegalArgumentException("Guest accounts cannot be imported.");
+            }
+        }
+        return new UserRegistration(row.field(columns[0]), row.field(columns[1]), row.field(columns[2]),
+                row.field(columns[3]), row.field(columns[4]), row.field(columns[5]), userType);
+    }
+
+    private void commitImport(List<PendingImport> batch,
+                              ExecutorService executor,
+                              int parallelism,
+                              UserImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        String[] hashes = new String[batch.size()];
+        int slice = (batch.size() + parallelism - 1) / parallelism;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < batch.size(); start += slice) {
+            int from = start;
+            int to = Math.min(start + slice, batch.size());
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    hashes[i] = passwordHasher.hash(batch.get(i).registration().password());
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("User import interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to hash imported passwords.", e.getCause());
+        }
+        List<User> users = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            users.add(toUser(batch.get(i).registration(), hashes[i]));
+        }
+        List<PendingImport> pending = new ArrayList<>(batch);
+        while (!users.isEmpty()) {
+            try {
+                repository.saveAll(users);
+                report.imported(users.size());
+                return;
+            } catch (IllegalArgumentException e) {
+                if (!dropConflictingImports(pending, users, report)) {
+                    for (PendingImport rejected : pending) {
+                        report.reject(rejected.lineNumber(), rejected.registration().username(), e.getMessage());
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean dropConflictingImports(List<PendingImport> pending, List<User> users, UserImportReport report) {
+        int kept = 0;
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            String reason = null;
+            if (repository.findByUsername(user.getUsername()) != null) {
+                reason = "Username already exists.";
+            } else if (repository.findByCustomId(user.getCustomId()) != null) {
+                reason = "Custom ID must be unique.";
+            }
+            if (reason != null) {
+                report.reject(pending.get(i).lineNumber(), user.getUsername(), reason);
+            } else {
+                pending.set(kept, pending.get(i));
+                users.set(kept, user);
+                kept++;
+            }
+        }
+        boolean dropped = kept < users.size();
+        pending.subList(kept, pending.size()).clear();
+        users.subList(kept, users.size()).clear();
+        return dropped;
+    }
+
+    private record PendingImport(long lineNumber, UserRegistration registration) {
+    }
+
+    private User prepareUser(UserRegistration registration) {
+        UserRegistration validated = validateRegistration(registration);
+        return toUser(validated, passwordHasher.hash(validated.password()));
+    }
+
+    private UserRegistration validateRegistration(UserRegistration registration) {
+        String safeUsername = requireValue(registration.username(), "Username");
+        String safePassword = requireValue(registration.password(), "Password");
+        String safeEmail = requireValue(registration.email(), "Email");
         if (!isValidEmail(safeEmail)) {
             throw new IllegalArgumentException("Invalid email format.");
         }
-        String safePhone = requireValue(phone, "Phone");
+        String safePhone = requireValue(registration.phone(), "Phone");
         if (!isValidPhone(safePhone)) {
             throw new IllegalArgumentException("Invalid phone number format.");
         }
-        String safeFullName = requireValue(fullName, "Full name");
-        String safeCustomId = requireValue(customId, "Custom ID");
+        String safeFullName = requireValue(registration.fullName(), "Full name");
+        String safeCustomId = requireValue(registration.customId(), "Custom ID");
 
         if (repository.findByUsername(safeUsername) != null) {
             throw new IllegalArgumentException("Username already exists.");
@@ -75,17 +308,19 @@ public class UserManager {
             throw new IllegalArgumentException("Custom ID must be unique.");
         }
 
-        String hashedPassword = passwordHasher.hash(safePassword);
-        User newUser = new User(
-                safeUsername,
+        return new UserRegistration(safeUsername, safePassword, safeEmail, safePhone, safeFullName, safeCustomId,
+                registration.userType() == null ? UserType.GENERAL : registration.userType());
+    }
+
+    private User toUser(UserRegistration registration, String hashedPassword) {
+        return new User(
+                registration.username(),
                 hashedPassword,
-                safeEmail,
-                safePhone,
-                safeFullName,
-                safeCustomId,
-                userType);
-        repository.save(newUser);
-        return newUser;
+                registration.email(),
+                registration.phone(),
+                registration.fullName(),
+                registration.customId(),
+                registration.userType());
     }
 
     public User login(String username, String password) {
@@ -102,60 +337,103 @@ public class UserManager {
         return null;
     }
 
-    public void updateEmail(User user, String email) {
+    public User updateEmail(User user, String email) {
         String safe = requireValue(email, "Email");
         if (!isValidEmail(safe)) {
             throw new IllegalArgumentException("Invalid email format.");
         }
-        user.setEmail(safe);
-        repository.save(user);
+        return update(user, current -> current.withEmail(safe));
     }
 
-    public void updateFullName(User user, String fullName) {
+    public User updateFullName(User user, String fullName) {
         String safe = requireValue(fullName, "Full name");
-        user.setFullName(safe);
-        repository.save(user);
+        return update(user, current -> current.withFullName(safe));
     }
 
-    public void updatePhone(User user, String phone) {
+    public User updatePhone(User user, String phone) {
         String safe = requireValue(phone, "Phone");
         if (!isValidPhone(safe)) {
             throw new IllegalArgumentException("Invalid phone number format. Must be 10 to 15 digits.");
         }
-        user.setPhoneNumber(safe);
-        repository.save(user);
+        return update(user, current -> current.withPhoneNumber(safe));
     }
 
-    public void changePassword(User user, String newPassword) {
+    public User changePassword(User user, String newPassword) {
         String safe = requireValue(newPassword, "Password");
-        user.setPasswordHash(passwordHasher.hash(safe));
-        repository.save(user);
+        String hashed = passwordHasher.hash(safe);
+        return update(user, current -> current.withPasswordHash(hashed));
     }
 
-    public void updateCustomId(User user, String customId) {
+    public User updateCustomId(User user, String customId) {
         String safe = requireValue(customId, "Custom ID");
         User existing = repository.findByCustomId(safe);
         if (existing != null && !existing.getUsername().equals(user.getUsername())) {
             throw new IllegalArgumentException("Custom ID must be unique.");
         }
-        user.setCustomId(safe);
-        repository.save(user);
+        return update(user, current -> current.withCustomId(safe));
     }
 
-    public void updateProfilePicture(User user, String profilePicturePath) {
+    public User updateProfilePicture(User user, String profilePicturePath) {
         if (user == null) {
-            return;
+            return null;
         }
-        if (profilePicturePath == null || profilePicturePath.trim().isEmpty()) {
-            user.setProfilePicturePath(null);
-        } else {
-            String trimmed = profilePicturePath.trim();
-            if (trimmed.contains("|")) {
+        String picture = null;
+        if (profilePicturePath != null && !profilePicturePath.trim().isEmpty()) {
+            picture = profilePicturePath.trim();
+            if (picture.contains("|")) {
                 throw new IllegalArgumentException("Profile picture path cannot contain the '|' character.");
             }
-            user.setProfilePicturePath(trimmed);
         }
-        repository.save(user);
+        String safe = picture;
+        return update(user, current -> current.withProfilePicturePath(safe));
+    }
+
+    public User storeProfilePicture(User user, Path source) throws IOException {
+        if (user == null) {
+            return null;
+        }
+        if (!Files.isRegularFile(source)) {
+            throw new IllegalArgumentException("Selected file is not valid.");
+        }
+        String fileName = source.getFileName().toString();
+        int dotIndex = fileName.lastIndexOf('.');
+        String extension = dotIndex >= 0 ? fileName.substring(dotIndex) : "";
+        String sanitizedBase = user.getUsername().replaceAll("[^a-zA-Z0-9-_]", "_");
+        if (sanitizedBase.isEmpty()) {
+            sanitizedBase = "user";
+        }
+        Path target = profilePictureLayout.resolveHashed(profilePictureDirectory, user.getUsername(), sanitizedBase + extension);
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        return updateProfilePicture(user, target.toAbsolutePath().toString());
+    }
+
+    public int migrateProfilePictures() {
+        Path root = profilePictureDirectory.toAbsolutePath().normalize();
+        List<User> moved = new ArrayList<>();
+        for (User user : repository.getAllUsers()) {
+            String picture = user.getProfilePicturePath();
+            if (picture == null || picture.isEmpty()) {
+                continue;
+            }
+            Path current = Path.of(picture).toAbsolutePath().normalize();
+            if (!current.startsWith(root) || !Files.isRegularFile(current)) {
+                continue;
+            }
+            Path target = profilePictureLayout.resolveHashed(root, user.getUsername(), current.getFileName().toString());
+            if (target.equals(current)) {
+                continue;
+            }
+            try {
+                Files.createDirectories(target.getParent());
+                Files.move(current, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to migrate profile picture of " + user.getUsername(), e);
+            }
+            moved.add(repository.findSnapshot(user.getUsername()).withProfilePicturePath(target.toString()).toUser());
+        }
+        repository.saveAll(moved);
+        return moved.size();
     }
 
     public List<User> getAllUsers() {
@@ -163,6 +441,10 @@ public class UserManager {
     }
 
     public void deleteUser(String username) {
+        repository.delete(requireDeletableUser(username).getUsername());
+    }
+
+    private User requireDeletableUser(String username) {
         if (username == null) {
             throw new IllegalArgumentException("Username is required.");
         }
@@ -173,7 +455,7 @@ public class UserManager {
         if (target.getUserType() == UserType.ADMIN) {
             throw new IllegalArgumentException("Cannot delete admin users.");
         }
-        repository.delete(target.getUsername());
+        return target;
     }
 
     public User createGuestUser() {
@@ -188,6 +470,16 @@ public class UserManager {
                 UserType.GUEST);
     }
 
+    private User update(User user, UnaryOperator<UserSnapshot> mutator) {
+        if (repository.findSnapshot(user.getUsername()) == null) {
+            User created = mutator.apply(UserSnapshot.of(user, 0)).toUser();
+            repository.save(created);
+            return created;
+        }
+        repository.update(user.getUsername(), mutator);
+        return repository.findByUsername(user.getUsername());
+    }
+
     private String requireValue(String value, String fieldName) {
         if (value == null) {
             throw new IllegalArgumentException(fieldName + " cannot be empty.");
@@ -0,0 +1,10 @@
+package org.example.user_management;
+
+public record UserRegistration(String username,
+                               String password,
+                               String email,
+                               String phone,
+                               String fullName,
+                               String customId,
+                               UserType userType) {
+}
@@ -6,65 +6,394 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+
+import org.example.storage.SnapshotReader;
+import org.example.storage.SnapshotWriter;
 
 public class UserRepository {
     private static final String DELIMITER = "|";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
 
     private final Path storagePath;
-    private final Map<String, User> usersByUsername = new LinkedHashMap<>();
+    private final Path snapshotPath;
+    private final boolean binarySnapshot;
+    private final Map<String, User> usersByUsername = new HashMap<>();
+    private final Map<String, Set<String>> usernamesByCustomId = new HashMap<>();
+    private final Map<String, IndexedFields> indexedFieldsByUsername = new HashMap<>();
+    private final Map<UserType, Integer> userCountsByType = new EnumMap<>(UserType.class);
+    private final Map<String, UserSnapshot> entitySnapshots = new HashMap<>();
+    private final Set<String> changedUsernames = new HashSet<>();
+    private final Set<String> changedCustomIds = new HashSet<>();
+    private final UserCommitFlusher flusher;
+    private long nextSequence;
+    private volatile Snapshot snapshot = new Snapshot(0, ShardedSnapshotMap.empty(), ShardedSnapshotMap.empty(),
+            Map.of(), ShardedSnapshotMap.empty());
 
     public UserRepository(Path storagePath) {
+        this(storagePath, 0);
+    }
+
+    public UserRepository(Path storagePath, long commitWindowMillis) {
+        this(storagePath, commitWindowMillis, false);
+    }
+
+    public UserRepository(Path storagePath, long commitWindowMillis, boolean binarySnapshot) {
         this.storagePath = storagePath;
+        this.snapshotPath = Path.of(storagePath.toString() + SNAPSHOT_SUFFIX);
+        this.binarySnapshot = binarySnapshot;
         loadFromFile();
+        this.flusher = commitWindowMillis > 0 ? new UserCommitFlusher(this::flushSnapshot, commitWindowMillis) : null;
     }
 
-    public synchronized List<User> getAllUsers() {
-        return new ArrayList<>(usersByUsername.values());
+    public List<User> getAllUsers() {
+        return snapshot.users();
     }
 
-    public synchronized User findByUsername(String username) {
-        return usersByUsername.get(username);
+    public User findByUsername(String username) {
+        return snapshot.user(username);
     }
 
-    public synchronized User findByCustomId(String customId) {
+    public User findByCustomId(String customId) {
         if (customId == null) {
             return null;
         }
-        for (User user : usersByUsername.values()) {
-            if (customId.equalsIgnoreCase(user.getCustomId())) {
-                return user;
+        Snapshot current = snapshot;
+        return current.user(current.usernamesByCustomId().get(normalizeCustomId(customId)));
+    }
+
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    public UserSnapshot findSnapshot(String username) {
+        return snapshot.entities().get(username);
+    }
+
+    public Optional<UserSnapshot> update(String username, long expectedVersion, UnaryOperator<UserSnapshot> mutator) {
+        UserSnapshot current = requireSnapshot(username);
+        if (current.version() != expectedVersion) {
+            return Optional.empty();
+        }
+        UserSnapshot next = mutator.apply(current);
+        if (!username.equals(next.username())) {
+            throw new IllegalArgumentException("Username cannot be changed.");
+        }
+        synchronized (this) {
+            UserSnapshot latest = requireSnapshot(username);
+            if (latest.version() != expectedVersion) {
+                return Optional.empty();
             }
+            putUser(next.toUser());
+            publish();
+            commit();
+            return Optional.of(entitySnapshots.get(username));
+        }
+    }
+
+    public UserSnapshot update(String username, UnaryOperator<UserSnapshot> mutator) {
+        while (true) {
+            Optional<UserSnapshot> updated = update(username, requireSnapshot(username).version(), mutator);
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+        }
+    }
+
+    public void save(User user) {
+        saveAsync(user);
+    }
+
+    public void delete(String username) {
+        deleteAsync(username);
+    }
+
+    public synchronized CompletableFuture<Void> saveAsync(User user) {
+        putUser(user);
+        publish();
+        return commit();
+    }
+
+    public synchronized CompletableFuture<Void> deleteAsync(String username) {
+        removeUser(username);
+        publish();
+        return commit();
+    }
+
+    public CompletableFuture<Void> saveAll(Collection<User> users) {
+        UserBatch batch = new UserBatch();
+        for (User user : users) {
+            batch.save(user);
+        }
+        return applyBatch(batch);
+    }
+
+    public CompletableFuture<Void> deleteAll(Collection<String> usernames) {
+        UserBatch batch = new UserBatch();
+        for (String username : usernames) {
+            batch.delete(username);
         }
-        return null;
+        return applyBatch(batch);
     }
 
-    public synchronized void save(User user) {
+    public synchronized CompletableFuture<Void> applyBatch(UserBatch batch) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        validateBatch(batch);
+        for (UserBatch.Operation operation : batch.operations()) {
+            if (operation.isDelete()) {
+                removeUser(operation.username());
+            } else {
+                putUser(operation.user());
+            }
+        }
+        publish();
+        return commit();
+    }
+
+    public CompletableFuture<Void> flush() {
+        if (flusher == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return flusher.requestFlush();
+    }
+
+    public void close() {
+        if (flusher != null) {
+            flusher.close();
+        }
+    }
+
+    public boolean isGroupCommit() {
+        return flusher != null;
+    }
+
+    public boolean hasAdmin() {
+        return countByType(UserType.ADMIN) > 0;
+    }
+
+    public int countByType(UserType userType) {
+        return snapshot.userCountsByType().getOrDefault(userType, 0);
+    }
+
+    private void validateBatch(UserBatch batch) {
+        Set<String> touched = new HashSet<>();
+        Map<String, Boolean> presentByUsername = new HashMap<>();
+        Map<String, String> finalCustomIds = new HashMap<>();
+        Map<String, String> customIdKeysByUsername = new HashMap<>();
+        for (UserBatch.Operation operation : batch.operations()) {
+            touched.add(operation.username());
+            if (operation.isDelete()) {
+                if (!presentByUsername.getOrDefault(operation.username(), usersByUsername.containsKey(operation.username()))) {
+                    throw new IllegalArgumentException("User not found: " + operation.username());
+                }
+            } else if (operation.user().getUserType() == null) {
+                throw new IllegalArgumentException("User type is required: " + operation.username());
+            }
+            presentByUsername.put(operation.username(), !operation.isDelete());
+            String previousKey = customIdKeysByUsername.remove(operation.username());
+            if (previousKey != null) {
+                finalCustomIds.remove(previousKey);
+            }
+            if (operation.isDelete() || operation.user().getCustomId() == null
+                    || operation.user().getCustomId().isEmpty()) {
+                continue;
+            }
+            String customIdKey = normalizeCustomId(operation.user().getCustomId());
+            customIdKeysByUsername.put(operation.username(), customIdKey);
+            String holder = finalCustomIds.putIfAbsent(customIdKey, operation.username());
+            if (holder != null && !holder.equals(operation.username())) {
+                throw new IllegalArgumentException("Custom ID must be unique.");
+            }
+        }
+        for (Map.Entry<String, String> entry : finalCustomIds.entrySet()) {
+            for (String holder : usernamesByCustomId.getOrDefault(entry.getKey(), Set.of())) {
+                if (!holder.equals(entry.getValue()) && !touched.contains(holder)) {
+                    throw new IllegalArgumentException("Custom ID must be unique.");
+                }
+            }
+        }
+    }
+
+    private UserSnapshot requireSnapshot(String username) {
+        UserSnapshot current = findSnapshot(username);
+        if (current == null) {
+            throw new IllegalArgumentException("User not found.");
+        }
+        return current;
+    }
+
+    private void publish() {
+        Map<String, OrderedUser> userChanges = new HashMap<>();
+        Map<String, UserSnapshot> entityChanges = new HashMap<>();
+        for (String username : changedUsernames) {
+            User user = usersByUsername.get(username);
+            userChanges.put(username, user == null
+                    ? null : new OrderedUser(indexedFieldsByUsername.get(username).sequence(), user));
+            entityChanges.put(username, entitySnapshots.get(username));
+        }
+        Map<String, String> holderChanges = new HashMap<>();
+        for (String customIdKey : changedCustomIds) {
+            Set<String> holders = usernamesByCustomId.get(customIdKey);
+            holderChanges.put(customIdKey, holders == null ? null : holders.iterator().next());
+        }
+        changedUsernames.clear();
+        changedCustomIds.clear();
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(current.version() + 1,
+                current.usersByUsername().with(userChanges),
+                current.usernamesByCustomId().with(holderChanges),
+                Collections.unmodifiableMap(new EnumMap<>(userCountsByType)),
+                current.entities().with(entityChanges));
+    }
+
+    private void putUser(User user) {
+        IndexedFields previousFields = indexedFieldsByUsername.get(user.getUsername());
+        long sequence = previousFields == null ? nextSequence++ : previousFields.sequence();
+        unindex(user.getUsername());
         usersByUsername.put(user.getUsername(), user);
-        persist();
+        changedUsernames.add(user.getUsername());
+        String customIdKey = user.getCustomId() == null ? null : normalizeCustomId(user.getCustomId());
+        if (customIdKey != null) {
+            usernamesByCustomId.computeIfAbsent(customIdKey, key -> new LinkedHashSet<>()).add(user.getUsername());
+            changedCustomIds.add(customIdKey);
+        }
+        indexedFieldsByUsername.put(user.getUsername(), new IndexedFields(customIdKey, user.getUserType(), sequence));
+        userCountsByType.merge(user.getUserType(), 1, Integer::sum);
+        UserSnapshot previous = entitySnapshots.get(user.getUsername());
+        entitySnapshots.put(user.getUsername(), UserSnapshot.of(user, previous == null ? 1 : previous.version() + 1));
     }
 
-    public synchronized void delete(String username) {
+    private void removeUser(String username) {
         usersByUsername.remove(username);
-        persist();
+        entitySnapshots.remove(username);
+        changedUsernames.add(username);
+        unindex(username);
+    }
+
+    private void unindex(String username) {
+        IndexedFields indexed = indexedFieldsByUsername.remove(username);
+        if (indexed == null) {
+            return;
+        }
+        Set<String> holders = indexed.customIdKey() == null ? null : usernamesByCustomId.get(indexed.customIdKey());
+        if (holders != null) {
+            changedCustomIds.add(indexed.customIdKey());
+            holders.remove(username);
+            if (holders.isEmpty()) {
+                usernamesByCustomId.remove(indexed.customIdKey());
+            }
+        }
+        userCountsByType.merge(indexed.userType(), -1, Integer::sum);
+    }
+
+    static String normalizeCustomId(String customId) {
+        return customId.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    private record IndexedFields(String customIdKey, UserType userType, long sequence) {
+    }
+
+    private record OrderedUser(long sequence, User user) {
     }
 
-    public synchronized boolean hasAdmin() {
-        for (User user : usersByUsername.values()) {
-            if (user.getUserType() == UserType.ADMIN) {
-                return true;
+    private static final class Snapshot {
+        private final long version;
+        private final ShardedSnapshotMap<OrderedUser> usersByUsername;
+        private final ShardedSnapshotMap<String> usernamesByCustomId;
+        private final Map<UserType, Integer> userCountsByType;
+        private final ShardedSnapshotMap<UserSnapshot> entities;
+        private volatile List<User> users;
+
+        private Snapshot(long version,
+                         ShardedSnapshotMap<OrderedUser> usersByUsername,
+                         ShardedSnapshotMap<String> usernamesByCustomId,
+                         Map<UserType, Integer> userCountsByType,
+                         ShardedSnapshotMap<UserSnapshot> entities) {
+            this.version = version;
+            this.usersByUsername = usersByUsername;
+            this.usernamesByCustomId = usernamesByCustomId;
+            this.userCountsByType = userCountsByType;
+            this.entities = entities;
+        }
+
+        long version() {
+            return version;
+        }
+
+        ShardedSnapshotMap<OrderedUser> usersByUsername() {
+            return usersByUsername;
+        }
+
+        ShardedSnapshotMap<String> usernamesByCustomId() {
+            return usernamesByCustomId;
+        }
+
+        Map<UserType, Integer> userCountsByType() {
+            return userCountsByType;
+        }
+
+        ShardedSnapshotMap<UserSnapshot> entities() {
+            return entities;
+        }
+
+        User user(String username) {
+            OrderedUser entry = usersByUsername.get(username);
+            return entry == null ? null : entry.user();
+        }
+
+        List<User> users() {
+            List<User> result = users;
+            if (result == null) {
+                List<OrderedUser> ordered = new ArrayList<>(usersByUsername.size());
+                usersByUsername.forEachValue(ordered::add);
+                ordered.sort(Comparator.comparingLong(OrderedUser::sequence));
+                List<User> values = new ArrayList<>(ordered.size());
+                for (OrderedUser entry : ordered) {
+                    values.add(entry.user());
+                }
+                result = Collections.unmodifiableList(values);
+                users = result;
             }
+            return result;
         }
-        return false;
     }
 
     private void loadFromFile() {
+        if (Files.exists(snapshotPath)) {
+            for (User user : SnapshotReader.read(snapshotPath, this::decodeUser)) {
+                putUser(user);
+            }
+            publish();
+            return;
+        }
         if (!Files.exists(storagePath)) {
             return;
         }
+        readLegacyFile();
+        publish();
+        if (binarySnapshot) {
+            prepareWrite().run();
+        }
+    }
+
+    private void readLegacyFile() {
         try (BufferedReader reader = Files.newBufferedReader(storagePath, StandardCharsets.UTF_8)) {
             String line;
             while ((line = reader.readLine()) != null) {
@@ -102,38 +431,110 @@ public class UserRepository {
                 } else {
                     user.setProfilePicturePath(profilePicturePath);
                 }
-                usersByUsername.put(username, user);
+                putUser(user);
             }
         } catch (IOException e) {
             throw new IllegalStateException("Failed to read user data: " + storagePath, e);
         }
     }
 
-    private void persist() {
+    private CompletableFuture<Void> commit() {
+        if (flusher == null) {
+            prepareWrite().run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return flusher.markDirty();
+    }
+
+    private void flushSnapshot() {
+        prepareWrite().run();
+    }
+
+    private Runnable prepareWrite() {
+        if (binarySnapshot) {
+            SnapshotWriter writer = encodeAll();
+            return () -> {
+                writer.writeTo(snapshotPath);
+                deleteQuietly(storagePath);
+            };
+        }
+        List<String> lines = formatAll();
+        return () -> {
+            writeLines(lines);
+            deleteQuietly(snapshotPath);
+        };
+    }
+
+    private SnapshotWriter encodeAll() {
+        SnapshotWriter writer = new SnapshotWriter(8);
+        for (User user : snapshot.users()) {
+            writer.addRecord(writer.string(user.getUsername()),
+                    writer.string(user.getPasswordHash()),
+                    writer.string(user.getEmail()),
+                    writer.string(user.getPhoneNumber()),
+                    writer.string(user.getFullName()),
+                    writer.string(user.getCustomId()),
+                    writer.string(user.getUserType().name()),
+                    writer.string(user.getProfilePicturePath()));
+        }
+        return writer;
+    }
+
+    private User decodeUser(SnapshotReader.Record record) {
+        User user = new User(record.getString(0),
+                record.getString(1),
+                safe(record.getString(2)),
+                safe(record.getString(3)),
+                safe(record.getString(4)),
+                safe(record.getString(5)),
+                parseUserType(record.getString(6)));
+        user.setProfilePicturePath(record.getString(7));
+        return user;
+    }
+
+    private List<String> formatAll() {
+        List<User> users = snapshot.users();
+        List<String> lines = new ArrayList<>(users.size());
+        for (User user : users) {
+            lines.add(String.join(DELIMITER,
+                    safe(user.getUsername()),
+                    safe(user.getPasswordHash()),
+                    safe(user.getEmail()),
+                    safe(user.getPhoneNumber()),
+                    safe(user.getFullName()),
+                    safe(user.getCustomId()),
+                    user.getUserType().name(),
+                    safe(user.getProfilePicturePath())));
+        }
+        return lines;
+    }
+
+    private void writeLines(List<String> lines) {
         try {
             Path parent = storagePath.getParent();
             if (parent != null) {
                 Files.createDirectories(parent);
             }
-            try (BufferedWriter writer = Files.newBufferedWriter(storagePath, StandardCharsets.UTF_8)) {
-                for (User user : usersByUsername.values()) {
-                    writer.write(String.join(DELIMITER,
-                            safe(user.getUsername()),
-                            safe(user.getPasswordHash()),
-                            safe(user.getEmail()),
-                            safe(user.getPhoneNumber()),
-                            safe(user.getFullName()),
-                            safe(user.getCustomId()),
-                            user.getUserType().name(),
-                            safe(user.getProfilePicturePath())));
+            Path tempPath = Path.of(storagePath.toString() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                for (String line : lines) {
+                    writer.write(line);
                     writer.newLine();
                 }
             }
+            Files.move(tempPath, storagePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to save user data: " + storagePath, e);
         }
     }
 
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+
     private String safe(String value) {
         return value == null ? "" : value;
     }
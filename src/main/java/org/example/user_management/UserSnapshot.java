@@ -0,0 +1,65 @@
+package org.example.user_management;
+
+public record UserSnapshot(String username,
+                           String passwordHash,
+                           String email,
+                           String phoneNumber,
+                           String fullName,
+                           String customId,
+                           UserType userType,
+                           String profilePicturePath,
+                           long version) {
+
+    static UserSnapshot of(User user, long version) {
+        return new UserSnapshot(user.getUsername(),
+                user.getPasswordHash(),
+                user.getEmail(),
+                user.getPhoneNumber(),
+                user.getFullName(),
+                user.getCustomId(),
+                user.getUserType(),
+                user.getProfilePicturePath(),
+                version);
+    }
+
+    public UserSnapshot withPasswordHash(String newPasswordHash) {
+        return new UserSnapshot(username, newPasswordHash, email, phoneNumber, fullName, customId, userType,
+                profilePicturePath, version);
+    }
+
+    public UserSnapshot withEmail(String newEmail) {
+        return new UserSnapshot(username, passwordHash, newEmail, phoneNumber, fullName, customId, userType,
+                profilePicturePath, version);
+    }
+
+    public UserSnapshot withPhoneNumber(String newPhoneNumber) {
+        return new UserSnapshot(username, passwordHash, email, newPhoneNumber, fullName, customId, userType,
+                profilePicturePath, version);
+    }
+
+    public UserSnapshot withFullName(String newFullName) {
+        return new UserSnapshot(username, passwordHash, email, phoneNumber, newFullName, customId, userType,
+                profilePicturePath, version);
+    }
+
+    public UserSnapshot withCustomId(String newCustomId) {
+        return new UserSnapshot(username, passwordHash, email, phoneNumber, fullName, newCustomId, userType,
+                profilePicturePath, version);
+    }
+
+    public UserSnapshot withUserType(UserType newUserType) {
+        return new UserSnapshot(username, passwordHash, email, phoneNumber, fullName, customId, newUserType,
+                profilePicturePath, version);
+    }
+
+    public UserSnapshot withProfilePicturePath(String newProfilePicturePath) {
+        return new UserSnapshot(username, passwordHash, email, phoneNumber, fullName, customId, userType,
+                newProfilePicturePath, version);
+    }
+
+    User toUser() {
+        User user = new User(username, passwordHash, email, phoneNumber, fullName, customId, userType);
+        user.setProfilePicturePath(profilePicturePath);
+        return user;
+    }
+}
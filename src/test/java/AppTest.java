@@ -23,7 +23,13 @@ class AppTest {
         } finally {
             System.setIn(originalIn);
             Files.deleteIfExists(users);
+            Files.deleteIfExists(Path.of("data", "users.db.snap"));
             Files.deleteIfExists(scrolls);
+            Files.deleteIfExists(Path.of("data", "scrolls", "scrolls.db.wal"));
+            Files.deleteIfExists(Path.of("data", "scrolls", "scrolls.db.snap"));
+            Files.deleteIfExists(Path.of("data", "scrolls", "scrolls.db.counters"));
+            Files.deleteIfExists(Path.of("data", "scrolls", "scrolls.db.metrics"));
+            Files.deleteIfExists(Path.of("data", "scrolls", "scrolls.db.ids"));
             if (Files.exists(uploads)) {
                 try (var stream = Files.walk(uploads).sorted(Comparator.reverseOrder())) {
                     stream.forEach(path -> {
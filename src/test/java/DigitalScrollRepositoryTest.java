@@ -1,5 +1,10 @@
 import org.example.digital_scroll_management.DigitalScroll;
 import org.example.digital_scroll_management.DigitalScrollRepository;
+import org.example.digital_scroll_management.DownloadWindow;
+import org.example.digital_scroll_management.ScrollBatch;
+import org.example.digital_scroll_management.ScrollDownloadTrend;
+import org.example.digital_scroll_management.ScrollSnapshot;
+import org.example.digital_scroll_management.ScrollField;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -7,6 +12,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +67,179 @@ class DigitalScrollRepositoryTest {
         DigitalScroll scroll = repository.findById("SC0004");
         assertEquals(3, scroll.getUploadCount());
         assertEquals(5, scroll.getDownloadCount());
+        assertEquals(-1, scroll.getContentSize());
+        assertNull(scroll.getContentHash());
+    }
+
+    @Test
+    void legacyDuplicateNamesKeepEveryHolderIndexed() throws IOException {
+        Path storage = tempDir.resolve("scrolls.db");
+        Files.writeString(storage, "SC0005|Fire Scroll|mage|/tmp/a|2021-02-02T02:02:02|0|0\n"
+                + "SC0006|FIRE SCROLL|mage|/tmp/b|2021-02-03T02:02:02|0|0", StandardCharsets.UTF_8);
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        assertEquals("SC0005", repository.findByName("fire scroll").getScrollId());
+
+        assertThrows(IllegalArgumentException.class, () -> repository.save(createScroll("SC0007", "Fire scroll")));
+
+        repository.delete("SC0005");
+        assertEquals("SC0006", repository.findByName("Fire Scroll").getScrollId());
+        assertThrows(IllegalArgumentException.class, () -> repository.save(createScroll("SC0007", "fire scroll")));
+
+        repository.delete("SC0006");
+        assertNull(repository.findByName("Fire Scroll"));
+        repository.save(createScroll("SC0007", "Fire Scroll"));
+        assertEquals("SC0007", repository.findByName("fire scroll").getScrollId());
+    }
+
+    @Test
+    void downloadCountsFlushToCounterFileWithoutCatalogWrites() throws Exception {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10, false, 60_000);
+        DigitalScroll scroll = createScroll("SC0001", "Alpha");
+        repository.save(scroll);
+        long walSize = Files.size(tempDir.resolve("scrolls.db.wal"));
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4000; i++) {
+            pool.submit(() -> repository.recordDownload(scroll));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS));
+        assertEquals(4000, scroll.getDownloadCount());
+        assertEquals(walSize, Files.size(tempDir.resolve("scrolls.db.wal")));
+        assertFalse(Files.exists(tempDir.resolve("scrolls.db.counters")));
+
+        repository.close();
+        DigitalScrollRepository reopened = new DigitalScrollRepository(storage, 10);
+        assertEquals(4000, reopened.findById("SC0001").getDownloadCount());
+        reopened.recordDownload(reopened.findById("SC0001"));
+        reopened.flushDownloadCounts();
+        assertEquals(4001, new DigitalScrollRepository(storage, 10).findById("SC0001").getDownloadCount());
+
+        reopened.delete("SC0001");
+        reopened.save(createScroll("SC0001", "Alpha"));
+        reopened.flushDownloadCounts();
+        assertEquals(0, new DigitalScrollRepository(storage, 10).findById("SC0001").getDownloadCount());
+    }
+
+    @Test
+    void deletesLeaveCounterTombstonesForTheFlusher() throws Exception {
+        Path storage = tempDir.resolve("scrolls.db");
+        Path counters = tempDir.resolve("scrolls.db.counters");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10, false, 60_000);
+        repository.save(createScroll("SC0001", "Alpha"));
+        repository.save(createScroll("SC0002", "Beta"));
+        repository.recordDownload(repository.findById("SC0001"));
+        repository.recordDownload(repository.findById("SC0002"));
+        repository.flushDownloadCounts();
+        byte[] before = Files.readAllBytes(counters);
+
+        repository.delete("SC0001");
+        assertArrayEquals(before, Files.readAllBytes(counters));
+
+        repository.save(createScroll("SC0001", "Alpha"));
+        repository.flushDownloadCounts();
+        assertTrue(Files.size(counters) < before.length);
+        repository.close();
+
+        DigitalScrollRepository reopened = new DigitalScrollRepository(storage, 10);
+        assertEquals(0, reopened.findById("SC0001").getDownloadCount());
+        assertEquals(1, reopened.findById("SC0002").getDownloadCount());
+    }
+
+    @Test
+    void downloadTrendsRollOverAndPersist() {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10);
+        DigitalScroll alpha = createScroll("SC0001", "Alpha");
+        DigitalScroll beta = createScroll("SC0002", "Beta");
+        repository.save(alpha);
+        repository.save(beta);
+        long now = 1_700_000_000_000L - 1_700_000_000_000L % 60_000;
+
+        for (int i = 0; i < 3; i++) {
+            repository.recordDownload(alpha, now + i);
+        }
+        repository.recordDownload(beta, now - 2 * 60_000);
+        repository.recordDownload(beta, now - 90 * 60_000);
+
+        List<ScrollDownloadTrend> top = repository.findTopDownloaded(DownloadWindow.LAST_HOUR, 1, now);
+        assertEquals(1, top.size());
+        assertEquals("SC0001", top.get(0).getScrollId());
+        assertEquals(3, top.get(0).getTotal());
+        assertTrue(top.get(0).sparkline().endsWith("#"));
+        assertEquals(1, repository.getDownloadTrend("SC0002", DownloadWindow.LAST_HOUR, now).getTotal());
+        assertEquals(2, repository.getDownloadTrend("SC0002", DownloadWindow.LAST_DAY, now).getTotal());
+        repository.close();
+
+        DigitalScrollRepository reopened = new DigitalScrollRepository(storage, 10);
+        int[] buckets = reopened.getDownloadTrend("SC0001", DownloadWindow.LAST_HOUR, now).getBuckets();
+        assertEquals(60, buckets.length);
+        assertEquals(3, buckets[59]);
+
+        long later = now + 61 * 60_000;
+        reopened.recordDownload(reopened.findById("SC0002"), later);
+        top = reopened.findTopDownloaded(DownloadWindow.LAST_HOUR, 20, later);
+        assertEquals(1, top.size());
+        assertEquals("SC0002", top.get(0).getScrollId());
+        assertEquals(0, reopened.getDownloadTrend("SC0001", DownloadWindow.LAST_HOUR, later).getTotal());
+        assertEquals(3, reopened.getDownloadTrend("SC0001", DownloadWindow.LAST_DAY, later).getTotal());
+    }
+
+    @Test
+    void getAllSharesImmutableViewUntilNextWrite() {
+        DigitalScrollRepository repository = new DigitalScrollRepository(tempDir.resolve("scrolls.db"), 10);
+        repository.save(createScroll("SC0001", "Alpha"));
+        List<DigitalScroll> first = repository.getAll();
+        assertSame(first, repository.getAll());
+        assertThrows(UnsupportedOperationException.class, () -> first.add(createScroll("SC0099", "Local")));
+        repository.recordDownload(first.get(0));
+        assertSame(first, repository.getAll());
+
+        repository.save(createScroll("SC0002", "Beta"));
+        List<DigitalScroll> second = repository.getAll();
+        assertNotSame(first, second);
+        assertEquals(1, first.size());
+        assertEquals(2, second.size());
+    }
+
+    @Test
+    void versionedUpdatesDetectConflictsAndNeverLoseWrites() throws Exception {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 1000);
+        DigitalScroll scroll = createScroll("SC0001", "Alpha");
+        scroll.setFilePath("0");
+        repository.save(scroll);
+        ScrollSnapshot initial = repository.findSnapshot("SC0001");
+
+        ScrollSnapshot renamed = repository.update("SC0001", initial.version(), current -> current.withName("Beta")).orElseThrow();
+        assertEquals(initial.version() + 1, renamed.version());
+        assertEquals("Alpha", initial.name());
+        assertTrue(repository.update("SC0001", initial.version(), current -> current.withName("Gamma")).isEmpty());
+        assertEquals("Beta", repository.findById("SC0001").getName());
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            pool.submit(() -> repository.update("SC0001",
+                    current -> current.withFilePath(String.valueOf(Long.parseLong(current.filePath()) + 1))));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, java.util.concurrent.TimeUnit.SECONDS));
+        assertEquals("400", repository.findSnapshot("SC0001").filePath());
+        assertEquals("400", new DigitalScrollRepository(storage, 1000).findById("SC0001").getFilePath());
+    }
+
+    @Test
+    void contentFingerprintSurvivesLogReplay() {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10);
+        DigitalScroll scroll = createScroll("SC0001", "Alpha");
+        scroll.setContentFingerprint(42, "abc123");
+        repository.save(scroll);
+
+        DigitalScroll reloaded = new DigitalScrollRepository(storage, 10).findById("SC0001");
+        assertEquals(42, reloaded.getContentSize());
+        assertEquals("abc123", reloaded.getContentHash());
     }
 
     @Test
@@ -72,6 +251,71 @@ class DigitalScrollRepositoryTest {
         assertEquals("SC0002", id2);
     }
 
+    @Test
+    void leasedIdsStayUniqueAcrossRestartsAndSortPastFourDigits() throws Exception {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10);
+        java.util.Set<String> ids = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 500; i++) {
+            pool.submit(() -> ids.add(repository.generateId()));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, java.util.concurrent.TimeUnit.SECONDS));
+        assertEquals(500, ids.size());
+        assertTrue(Files.exists(tempDir.resolve("scrolls.db.ids")));
+
+        String afterRestart = new DigitalScrollRepository(storage, 10).generateId();
+        assertFalse(ids.contains(afterRestart));
+
+        DigitalScrollRepository large = new DigitalScrollRepository(tempDir.resolve("large.db"), 10);
+        large.save(createScroll("SC9998", "Late"));
+        List<String> generated = List.of(large.generateId(), large.generateId(), large.generateId());
+        assertEquals(List.of("SC9999", "SCA10000", "SCA10001"), generated);
+        assertEquals(generated, generated.stream().sorted().toList());
+        large.save(createScroll("SCA10001", "Later"));
+        assertTrue(new DigitalScrollRepository(tempDir.resolve("large.db"), 10).generateId().compareTo("SCA10001") > 0);
+    }
+
+    @Test
+    void batchesValidateUpFrontAndCommitOnce() throws Exception {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 1000);
+        DigitalScroll alpha = createScroll("SC0001", "Alpha");
+        DigitalScroll beta = createScroll("SC0002", "Beta");
+        repository.saveAll(List.of(alpha, beta, createScroll("SC0003", "Gamma")));
+        assertEquals(3, Files.readAllLines(tempDir.resolve("scrolls.db.wal")).size());
+
+        DigitalScroll clash = createScroll("SC0004", "Gamma");
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.applyBatch(new ScrollBatch().delete("SC0001").save(clash)));
+        assertNotNull(repository.findById("SC0001"));
+        assertNull(repository.findById("SC0004"));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.applyBatch(new ScrollBatch().save(createScroll("SC0005", "Delta")).delete("SC0009")));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.applyBatch(new ScrollBatch().delete("SC0002").delete("SC0002")));
+        DigitalScroll ownerless = new DigitalScroll("SC0006", "Epsilon", null, "/tmp/epsilon",
+                java.time.LocalDateTime.now(), 0, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.applyBatch(new ScrollBatch().delete("SC0003").save(ownerless)));
+        assertNull(repository.findById("SC0005"));
+        assertNotNull(repository.findById("SC0002"));
+        assertNotNull(repository.findById("SC0003"));
+        assertEquals(3, Files.readAllLines(tempDir.resolve("scrolls.db.wal")).size());
+
+        alpha.setName("Beta");
+        beta.setName("Alpha");
+        repository.applyBatch(new ScrollBatch().save(alpha).save(beta).delete("SC0003").save(clash));
+        DigitalScrollRepository reloaded = new DigitalScrollRepository(storage, 1000);
+        assertEquals("SC0001", reloaded.findByName("Beta").getScrollId());
+        assertEquals("SC0002", reloaded.findByName("Alpha").getScrollId());
+        assertEquals("SC0004", reloaded.findByName("Gamma").getScrollId());
+
+        reloaded.deleteAll(List.of("SC0001", "SC0002"));
+        assertEquals(1, new DigitalScrollRepository(storage, 1000).size());
+    }
+
     @Test
     void parseTimestampHandlesInvalidInput() throws IOException {
         Path storage = tempDir.resolve("scrolls.db");
@@ -85,4 +329,155 @@ class DigitalScrollRepositoryTest {
         DigitalScrollRepository repository = repository();
         assertNull(repository.findById("UNKNOWN"));
     }
+
+    @Test
+    void logStructuredModeReplaysAppendedRecords() throws IOException {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 100);
+        repository.save(createScroll("SC0001", "Alpha"));
+        repository.save(createScroll("SC0002", "Beta"));
+        repository.delete("SC0001");
+
+        assertFalse(Files.exists(storage));
+        assertEquals(3, Files.readAllLines(tempDir.resolve("scrolls.db.wal")).size());
+
+        DigitalScrollRepository reloaded = new DigitalScrollRepository(storage, 100);
+        assertNull(reloaded.findById("SC0001"));
+        assertEquals("Beta", reloaded.findById("SC0002").getName());
+        assertEquals("SC0003", reloaded.generateId());
+    }
+
+    @Test
+    void logStructuredModeCompactsIntoSnapshot() throws IOException {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 2);
+        repository.save(createScroll("SC0001", "Alpha"));
+        repository.save(createScroll("SC0002", "Beta"));
+
+        assertTrue(Files.exists(storage));
+        assertFalse(Files.exists(tempDir.resolve("scrolls.db.wal")));
+        assertEquals(2, new DigitalScrollRepository(storage).getAll().size());
+    }
+
+    @Test
+    void replayDropsTornAndCorruptLogTail() throws IOException {
+        Path storage = tempDir.resolve("scrolls.db");
+        Path log = tempDir.resolve("scrolls.db.wal");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 100);
+        repository.save(createScroll("SC0001", "Alpha"));
+        repository.save(createScroll("SC0002", "Beta"));
+        long intact = Files.size(log);
+        String corrupt = "00000000:PUT|SC0003|Gamma|owner|/tmp/gamma|2024-01-01T00:00|0|0" + System.lineSeparator();
+        Files.writeString(log, corrupt + "1f2e3d4c:PUT|SC0004|Del", java.nio.file.StandardOpenOption.APPEND);
+
+        DigitalScrollRepository reopened = new DigitalScrollRepository(storage, 100);
+        assertEquals(2, reopened.size());
+        assertNull(reopened.findById("SC0003"));
+        assertEquals(intact, Files.size(log));
+
+        reopened.save(createScroll("SC0005", "Epsilon"));
+        DigitalScrollRepository reloaded = new DigitalScrollRepository(storage, 100);
+        assertEquals(3, reloaded.size());
+        assertEquals("Epsilon", reloaded.findById("SC0005").getName());
+    }
+
+    @Test
+    void rewriteModeFoldsLeftoverLogIntoSnapshot() throws IOException {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository logged = new DigitalScrollRepository(storage, 100);
+        logged.save(createScroll("SC0001", "Alpha"));
+
+        DigitalScrollRepository repository = repository();
+        assertEquals("Alpha", repository.findById("SC0001").getName());
+        assertTrue(Files.readString(storage).contains("Alpha"));
+        assertFalse(Files.exists(tempDir.resolve("scrolls.db.wal")));
+    }
+
+    @Test
+    void binarySnapshotRoundTripsAcrossChunks() {
+        Path storage = tempDir.resolve("scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10_000, true);
+        for (int i = 1; i <= 5000; i++) {
+            repository.save(createScroll(String.format("SC%04d", i), "Scroll " + i));
+        }
+        repository.compact();
+        assertTrue(Files.exists(tempDir.resolve("scrolls.db.snap")));
+
+        DigitalScrollRepository reloaded = new DigitalScrollRepository(storage, 0, true);
+        assertEquals(5000, reloaded.getAll().size());
+        assertEquals("Scroll 4321", reloaded.findById("SC4321").getName());
+        assertEquals("SC0001", reloaded.getAll().get(0).getScrollId());
+        assertFalse(Files.exists(storage));
+    }
+
+    @Test
+    void binarySnapshotKeepsNanosecondTimestamps() {
+        Path storage = tempDir.resolve("scrolls.db");
+        java.time.LocalDateTime precise = java.time.LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_456_789);
+        java.time.LocalDateTime early = java.time.LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999);
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 10_000, true);
+        repository.save(new DigitalScroll("SC0001", "Precise", "owner", "/tmp/precise", precise, 1, 0));
+        repository.save(new DigitalScroll("SC0002", "Early", "owner", "/tmp/early", early, 1, 0));
+        repository.compact();
+
+        DigitalScrollRepository reloaded = new DigitalScrollRepository(storage, 0, true);
+        assertEquals(precise, reloaded.findById("SC0001").getUploadTimestamp());
+        assertEquals(early, reloaded.findById("SC0002").getUploadTimestamp());
+    }
+
+    @Test
+    void binaryModeMigratesLegacyFile() throws IOException {
+        Path storage = tempDir.resolve("scrolls.db");
+        Files.writeString(storage, "SC0004|Modern|mage|/tmp/file|2021-02-02T02:02:02|3|5", StandardCharsets.UTF_8);
+
+        new DigitalScrollRepository(storage, 0, true);
+        assertTrue(Files.exists(tempDir.resolve("scrolls.db.snap")));
+        assertFalse(Files.exists(storage));
+
+        DigitalScroll scroll = new DigitalScrollRepository(storage).findById("SC0004");
+        assertEquals("Modern", scroll.getName());
+        assertEquals(java.time.LocalDateTime.parse("2021-02-02T02:02:02"), scroll.getUploadTimestamp());
+        assertEquals(5, scroll.getDownloadCount());
+    }
+
+    @Test
+    void saveRejectsDuplicateNameAcrossScrolls() {
+        DigitalScrollRepository repository = repository();
+        repository.save(createScroll("SC0001", "Alpha"));
+        assertThrows(IllegalArgumentException.class, () -> repository.save(createScroll("SC0002", "ALPHA")));
+        assertNull(repository.findById("SC0002"));
+        assertEquals("SC0001", repository.findByName("alpha").getScrollId());
+    }
+
+    @Test
+    void ownerIndexFollowsOwnershipChanges() {
+        DigitalScrollRepository repository = repository();
+        DigitalScroll scroll = createScroll("SC0001", "Alpha");
+        repository.save(scroll);
+        repository.save(createScroll("SC0002", "Beta"));
+        assertEquals(2, repository.findByOwner("owner").size());
+
+        scroll.setOwnerUsername("other");
+        repository.save(scroll);
+        assertEquals(1, repository.findByOwner("owner").size());
+        assertEquals("SC0001", repository.findByOwner("other").get(0).getScrollId());
+
+        repository.delete("SC0001");
+        assertTrue(repository.findByOwner("other").isEmpty());
+    }
+
+    @Test
+    void trigramIndexReturnsCandidatesOrNullForShortFragments() {
+        DigitalScrollRepository repository = repository();
+        repository.save(createScroll("SC0001", "Alpha"));
+        repository.save(createScroll("SC0002", "Alphabet"));
+
+        assertEquals(java.util.Set.of("SC0001", "SC0002"), repository.findIdsContaining(ScrollField.NAME, "LPH"));
+        assertEquals(java.util.Set.of("SC0002"), repository.findIdsContaining(ScrollField.NAME, "bet"));
+        assertTrue(repository.findIdsContaining(ScrollField.OWNER, "nobody").isEmpty());
+        assertNull(repository.findIdsContaining(ScrollField.NAME, "al"));
+
+        repository.delete("SC0002");
+        assertEquals(java.util.Set.of("SC0001"), repository.findIdsContaining(ScrollField.SCROLL_ID, "sc0"));
+    }
 }
@@ -1,6 +1,12 @@
 import org.example.digital_scroll_management.DigitalScroll;
 import org.example.digital_scroll_management.DigitalScrollRepository;
 import org.example.digital_scroll_management.DigitalScrollService;
+import org.example.digital_scroll_management.ScrollOrder;
+import org.example.digital_scroll_management.ScrollPage;
+import org.example.digital_scroll_management.ScrollRanking;
+import org.example.digital_scroll_management.ScrollServiceOptions;
+import org.example.digital_scroll_management.ScrollStatistics;
+import org.example.digital_scroll_management.ScrollTransferEngine;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -47,10 +53,10 @@ class DigitalScrollServiceTest {
         service.recordDownload(updated);
         assertEquals(1, service.getScroll(updated.getScrollId()).getDownloadCount());
 
-        List<String> stats = service.getScrollStatistics();
-        assertEquals(1, stats.size());
-        assertTrue(stats.get(0).contains("uploads=2"));
-        assertTrue(stats.get(0).contains("downloads=1"));
+        ScrollStatistics stats = service.getCatalogStatistics();
+        assertEquals(1, stats.getScrollCount());
+        assertEquals(2, stats.getUploadCount());
+        assertEquals(1, stats.getDownloadCount());
 
         service.removeScroll("owner1", updated.getScrollId());
         assertNull(service.getScroll(updated.getScrollId()));
@@ -191,4 +197,470 @@ class DigitalScrollServiceTest {
         assertTrue(fileName.endsWith("Plain"));
         assertFalse(fileName.contains("."));
     }
+
+    @Test
+    void renamedScrollReleasesItsOldName() throws Exception {
+        DigitalScrollService service = createService();
+        Path src = tempDir.resolve("rename.bin");
+        Files.write(src, new byte[]{4});
+        DigitalScroll scroll = service.addScroll("owner", "Original", src.toString());
+        service.addScroll("owner", "Taken", src.toString());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.updateScroll("owner", scroll.getScrollId(), "taken", null));
+        assertEquals("Original", service.getScroll(scroll.getScrollId()).getName());
+
+        service.updateScroll("owner", scroll.getScrollId(), "Renamed", null);
+        DigitalScroll reused = service.addScroll("owner", "original", src.toString());
+        assertNotEquals(scroll.getScrollId(), reused.getScrollId());
+        assertEquals(3, service.listScrollsByOwner("owner").size());
+    }
+
+    @Test
+    void pagesThroughCatalogWithStableCursors() throws Exception {
+        DigitalScrollRepository repository = new DigitalScrollRepository(tempDir.resolve("paged.db"));
+        DigitalScrollService service = new DigitalScrollService(repository, tempDir.resolve("paged"));
+        java.time.LocalDateTime base = java.time.LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 1; i <= 7; i++) {
+            repository.save(new DigitalScroll(String.format("SC%04d", i), "Page " + i, "owner", "f.bin", base.minusDays(i), 1, 0));
+        }
+
+        ScrollPage first = service.listScrollsPage(ScrollOrder.BY_ID, null, 3);
+        assertEquals(List.of("SC0001", "SC0002", "SC0003"), ids(first));
+        assertTrue(first.hasMore());
+        repository.delete("SC0004");
+        ScrollPage second = service.listScrollsPage(ScrollOrder.BY_ID, first.getNextCursor(), 3);
+        assertEquals(List.of("SC0005", "SC0006", "SC0007"), ids(second));
+        assertFalse(second.hasMore());
+
+        ScrollPage oldest = service.listScrollsPage(ScrollOrder.BY_UPLOAD_TIME, null, 4);
+        assertEquals(List.of("SC0007", "SC0006", "SC0005", "SC0003"), ids(oldest));
+        ScrollPage newest = service.listScrollsPage(ScrollOrder.BY_UPLOAD_TIME, oldest.getNextCursor(), 4);
+        assertEquals(List.of("SC0002", "SC0001"), ids(newest));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.listScrollsPage(ScrollOrder.BY_UPLOAD_TIME, first.getNextCursor(), 3));
+        assertThrows(IllegalArgumentException.class, () -> service.listScrollsPage(ScrollOrder.BY_ID, "%%%", 3));
+        assertThrows(IllegalArgumentException.class, () -> service.listScrollsPage(ScrollOrder.BY_ID, null, 0));
+    }
+
+    @Test
+    void leaderboardsFollowDownloadsUpdatesAndRemovals() throws Exception {
+        DigitalScrollService service = createService();
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, new byte[]{1});
+        DigitalScroll alpha = service.addScroll("owner1", "Alpha", source.toString());
+        DigitalScroll beta = service.addScroll("owner1", "Beta", source.toString());
+        DigitalScroll gamma = service.addScroll("owner1", "Gamma", source.toString());
+
+        Path replacement = tempDir.resolve("replacement.bin");
+        Files.write(replacement, new byte[]{2, 3});
+        service.updateScroll("owner1", alpha.getScrollId(), null, replacement.toString());
+        for (int i = 0; i < 3; i++) {
+            service.recordDownload(beta);
+        }
+        service.recordDownload(gamma);
+
+        List<DigitalScroll> downloaded = service.topScrolls(ScrollRanking.MOST_DOWNLOADED, 2);
+        assertEquals(List.of(beta.getScrollId(), gamma.getScrollId()),
+                downloaded.stream().map(DigitalScroll::getScrollId).toList());
+        assertEquals(alpha.getScrollId(), service.topScrolls(ScrollRanking.MOST_UPDATED, 1).get(0).getScrollId());
+        assertEquals(alpha.getScrollId(), service.topScrolls(ScrollRanking.RECENTLY_UPDATED, 1).get(0).getScrollId());
+
+        service.removeScroll("owner1", beta.getScrollId());
+        assertEquals(gamma.getScrollId(), service.topScrolls(ScrollRanking.MOST_DOWNLOADED, 1).get(0).getScrollId());
+        assertEquals(2, service.topScrolls(ScrollRanking.MOST_DOWNLOADED, 10).size());
+        assertThrows(IllegalArgumentException.class, () -> service.topScrolls(ScrollRanking.MOST_UPDATED, 0));
+    }
+
+    @Test
+    void statisticsAggregateIncrementallyPerOwner() throws Exception {
+        DigitalScrollService service = createService();
+        Path small = tempDir.resolve("small.bin");
+        Path large = tempDir.resolve("large.bin");
+        Files.write(small, new byte[10]);
+        Files.write(large, new byte[100]);
+        DigitalScroll alpha = service.addScroll("owner1", "Alpha", small.toString());
+        DigitalScroll beta = service.addScroll("owner1", "Beta", large.toString());
+        DigitalScroll gamma = service.addScroll("owner2", "Gamma", small.toString());
+        service.updateScroll("owner1", alpha.getScrollId(), null, large.toString());
+        service.recordDownload(beta);
+        service.recordDownload(beta);
+        service.recordDownload(gamma);
+
+        ScrollStatistics global = service.getCatalogStatistics();
+        assertEquals(3, global.getScrollCount());
+        assertEquals(210, global.getTotalBytes());
+        assertEquals(4, global.getUploadCount());
+        assertEquals(3, global.getDownloadCount());
+        ScrollStatistics owner1 = service.getOwnerStatistics("owner1");
+        assertEquals(2, owner1.getScrollCount());
+        assertEquals(200, owner1.getTotalBytes());
+        assertEquals(3, owner1.getUploadCount());
+        assertEquals(2, owner1.getDownloadCount());
+        assertEquals(List.of("owner1", "owner2"), List.copyOf(service.getStatisticsByOwner().keySet()));
+
+        service.removeScroll("owner2", gamma.getScrollId());
+        assertEquals(0, service.getOwnerStatistics("owner2").getScrollCount());
+        assertFalse(service.getStatisticsByOwner().containsKey("owner2"));
+        assertEquals(2, service.getCatalogStatistics().getDownloadCount());
+
+        ScrollStatistics reloaded = new DigitalScrollRepository(tempDir.resolve("scrolls.db")).getStatistics();
+        assertEquals(2, reloaded.getScrollCount());
+        assertEquals(200, reloaded.getTotalBytes());
+        assertEquals(2, reloaded.getDownloadCount());
+    }
+
+    @Test
+    void identicalUploadsShareOneReferenceCountedBlob() throws Exception {
+        Path storage = tempDir.resolve("dedup.db");
+        Path uploads = tempDir.resolve("dedup");
+        DigitalScrollService service = new DigitalScrollService(new DigitalScrollRepository(storage), uploads,
+                new ScrollServiceOptions().deduplicateUploads(true));
+        Path source = tempDir.resolve("same.bin");
+        Files.write(source, new byte[]{9, 8, 7, 6});
+
+        DigitalScroll first = service.addScroll("owner", "First", source.toString());
+        DigitalScroll second = service.addScroll("owner", "Second", source.toString());
+        assertEquals(first.getFilePath(), second.getFilePath());
+        Path blob = Path.of(first.getFilePath());
+        assertTrue(Files.exists(blob));
+        assertEquals(1, Files.list(uploads.resolve("blobs")).count());
+
+        DigitalScrollService reopened = new DigitalScrollService(new DigitalScrollRepository(storage), uploads,
+                new ScrollServiceOptions().deduplicateUploads(true));
+        reopened.removeScroll("owner", first.getScrollId());
+        assertTrue(Files.exists(blob));
+
+        Path other = tempDir.resolve("other.bin");
+        Files.write(other, new byte[]{1, 2, 3});
+        reopened.updateScroll("owner", second.getScrollId(), null, other.toString());
+        assertFalse(Files.exists(blob));
+        DigitalScroll updated = reopened.getScroll(second.getScrollId());
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(Path.of(updated.getFilePath())));
+
+        reopened.removeScroll("owner", second.getScrollId());
+        assertEquals(0, Files.list(uploads.resolve("blobs")).count());
+    }
+
+    @Test
+    void concurrentIdenticalUploadsStoreOneBlob() throws Exception {
+        Path uploads = tempDir.resolve("parallel");
+        java.util.concurrent.atomic.AtomicInteger copies = new java.util.concurrent.atomic.AtomicInteger();
+        ScrollTransferEngine countingEngine = new ScrollTransferEngine() {
+            @Override
+            public long transfer(Path source, Path target, ProgressListener listener,
+                                 java.util.function.BooleanSupplier cancelRequested) throws java.io.IOException {
+                copies.incrementAndGet();
+                return super.transfer(source, target, listener, cancelRequested);
+            }
+        };
+        DigitalScrollService service = new DigitalScrollService(new DigitalScrollRepository(tempDir.resolve("parallel.db")),
+                uploads, new ScrollServiceOptions().transferEngine(countingEngine).deduplicateUploads(true));
+        byte[] content = new byte[300_000];
+        new java.util.Random(13).nextBytes(content);
+        Path source = tempDir.resolve("parallel.bin");
+        Files.write(source, content);
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(8);
+        List<java.util.concurrent.Future<DigitalScroll>> futures = new java.util.ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            String name = "Copy " + i;
+            futures.add(pool.submit(() -> service.addScroll("owner", name, source.toString())));
+        }
+        java.util.Set<String> paths = new java.util.HashSet<>();
+        List<String> ids = new java.util.ArrayList<>();
+        for (java.util.concurrent.Future<DigitalScroll> future : futures) {
+            DigitalScroll scroll = future.get();
+            paths.add(scroll.getFilePath());
+            ids.add(scroll.getScrollId());
+        }
+        pool.shutdown();
+        assertEquals(1, paths.size());
+        assertEquals(1, copies.get());
+        Path blob = Path.of(paths.iterator().next());
+        assertArrayEquals(content, Files.readAllBytes(blob));
+        try (java.util.stream.Stream<Path> files = Files.list(uploads.resolve("blobs"))) {
+            assertEquals(1, files.count());
+        }
+
+        for (String id : ids.subList(0, ids.size() - 1)) {
+            service.removeScroll("owner", id);
+        }
+        assertTrue(Files.exists(blob));
+        service.removeScroll("owner", ids.get(ids.size() - 1));
+        assertFalse(Files.exists(blob));
+    }
+
+    @Test
+    void identicalReuploadOnlyUpdatesMetadata() throws Exception {
+        Path storage = tempDir.resolve("fingerprint.db");
+        DigitalScrollService service = new DigitalScrollService(new DigitalScrollRepository(storage, 0, true),
+                tempDir.resolve("fingerprint"));
+        Path source = tempDir.resolve("scroll.bin");
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new java.util.Random(7).nextBytes(content);
+        Files.write(source, content);
+        DigitalScroll scroll = service.addScroll("owner", "Large", source.toString());
+        assertEquals(content.length, scroll.getContentSize());
+        assertNotNull(scroll.getContentHash());
+
+        Path stored = Path.of(scroll.getFilePath());
+        Files.setLastModifiedTime(stored, java.nio.file.attribute.FileTime.fromMillis(0));
+        Path copy = tempDir.resolve("copy.bin");
+        Files.write(copy, content);
+        DigitalScroll renamed = service.updateScroll("owner", scroll.getScrollId(), "Large Renamed", copy.toString());
+        assertEquals(1, renamed.getUploadCount());
+        assertEquals("Large Renamed", renamed.getName());
+        assertEquals("Large", scroll.getName());
+        assertEquals(0, Files.getLastModifiedTime(stored).toMillis());
+
+        content[content.length - 1]++;
+        Files.write(copy, content);
+        DigitalScroll replaced = service.updateScroll("owner", scroll.getScrollId(), null, copy.toString());
+        assertEquals(2, replaced.getUploadCount());
+        assertArrayEquals(content, Files.readAllBytes(stored));
+
+        DigitalScroll reloaded = new DigitalScrollRepository(storage, 0, true).findById(scroll.getScrollId());
+        assertEquals(replaced.getContentHash(), reloaded.getContentHash());
+        assertEquals(content.length, reloaded.getContentSize());
+    }
+
+    @Test
+    void replacementRewritesOnlyChangedBlocks() throws Exception {
+        DigitalScrollService service = new DigitalScrollService(new DigitalScrollRepository(tempDir.resolve("delta.db")),
+                tempDir.resolve("delta"));
+        int block = 1024 * 1024;
+        byte[] content = new byte[4 * block];
+        new java.util.Random(11).nextBytes(content);
+        Path source = tempDir.resolve("delta-source.bin");
+        Files.write(source, content);
+        DigitalScroll scroll = service.addScroll("owner", "Delta", source.toString());
+        Path stored = Path.of(scroll.getFilePath());
+        assertTrue(Files.exists(stored.resolveSibling(stored.getFileName() + ".blocks")));
+
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(stored,
+                java.nio.file.StandardOpenOption.WRITE)) {
+            channel.write(java.nio.ByteBuffer.wrap(new byte[]{42}), 0);
+        }
+        byte[] edited = java.util.Arrays.copyOf(content, content.length + 100);
+        edited[2 * block + 5] ^= 1;
+        Files.write(source, edited);
+        DigitalScroll edited2 = service.updateScroll("owner", scroll.getScrollId(), null, source.toString());
+
+        byte[] result = Files.readAllBytes(stored);
+        assertEquals(edited.length, result.length);
+        assertEquals(42, result[0]);
+        assertArrayEquals(java.util.Arrays.copyOfRange(edited, 1, edited.length),
+                java.util.Arrays.copyOfRange(result, 1, result.length));
+        assertEquals(2, edited2.getUploadCount());
+
+        byte[] shorter = java.util.Arrays.copyOf(edited, block + 3);
+        shorter[0] = 42;
+        Files.write(source, shorter);
+        service.updateScroll("owner", scroll.getScrollId(), null, source.toString());
+        assertArrayEquals(shorter, Files.readAllBytes(stored));
+
+        service.removeScroll("owner", scroll.getScrollId());
+        assertFalse(Files.exists(stored.resolveSibling(stored.getFileName() + ".blocks")));
+    }
+
+    @Test
+    void interruptedBlockRewritesRollBackToPreviousContent() throws Exception {
+        java.util.concurrent.atomic.AtomicInteger failOnRange = new java.util.concurrent.atomic.AtomicInteger(-1);
+        java.util.concurrent.atomic.AtomicBoolean crash = new java.util.concurrent.atomic.AtomicBoolean();
+        java.util.concurrent.atomic.AtomicInteger ranges = new java.util.concurrent.atomic.AtomicInteger();
+        ScrollTransferEngine faultyEngine = new ScrollTransferEngine() {
+            @Override
+            public long transferRange(java.nio.channels.FileChannel in, java.nio.channels.FileChannel out,
+                                      long position, long length) throws java.io.IOException {
+                long copied = super.transferRange(in, out, position, length);
+                if (ranges.incrementAndGet() == failOnRange.get()) {
+                    if (crash.get()) {
+                        throw new AssertionError("simulated crash");
+                    }
+                    throw new java.io.IOException("simulated disk failure");
+                }
+                return copied;
+            }
+        };
+        Path storage = tempDir.resolve("journal.db");
+        Path uploads = tempDir.resolve("journal");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        DigitalScrollService service = new DigitalScrollService(repository, uploads, new ScrollServiceOptions().transferEngine(faultyEngine));
+        int block = 1024 * 1024;
+        byte[] original = new byte[4 * block];
+        new java.util.Random(17).nextBytes(original);
+        Path source = tempDir.resolve("journal-source.bin");
+        Files.write(source, original);
+        DigitalScroll scroll = service.addScroll("owner", "Journaled", source.toString());
+        Path stored = Path.of(scroll.getFilePath());
+
+        byte[] edited = java.util.Arrays.copyOf(original, 3 * block + 7);
+        edited[5] ^= 1;
+        edited[2 * block + 5] ^= 1;
+        Files.write(source, edited);
+        ranges.set(0);
+        failOnRange.set(2);
+        assertThrows(IllegalStateException.class,
+                () -> service.updateScroll("owner", scroll.getScrollId(), null, source.toString()));
+        assertArrayEquals(original, Files.readAllBytes(stored));
+        assertEquals(1, service.getScroll(scroll.getScrollId()).getUploadCount());
+        try (java.util.stream.Stream<Path> journals = Files.list(uploads.resolve("journal"))) {
+            assertEquals(0, journals.count());
+        }
+
+        DigitalScrollService resumed = new DigitalScrollService(repository, uploads, new ScrollServiceOptions().transferEngine(faultyEngine));
+        resumed.updateScroll("owner", scroll.getScrollId(), null, tempDir.resolve("journal-source.bin").toString());
+        assertArrayEquals(edited, Files.readAllBytes(stored));
+
+        byte[] again = edited.clone();
+        again[7] ^= 1;
+        again[3 * block] ^= 1;
+        Files.write(source, again);
+        ranges.set(0);
+        crash.set(true);
+        assertThrows(AssertionError.class,
+                () -> resumed.updateScroll("owner", scroll.getScrollId(), null, source.toString()));
+        assertFalse(java.util.Arrays.equals(edited, Files.readAllBytes(stored)));
+
+        crash.set(false);
+        failOnRange.set(-1);
+        new DigitalScrollService(repository, uploads, new ScrollServiceOptions().transferEngine(faultyEngine));
+        assertArrayEquals(edited, Files.readAllBytes(stored));
+        try (java.util.stream.Stream<Path> journals = Files.list(uploads.resolve("journal"))) {
+            assertEquals(0, journals.count());
+        }
+    }
+
+    @Test
+    void keepsDeltaCompressedHistoryWithRetention() throws Exception {
+        Path uploads = tempDir.resolve("versioned");
+        DigitalScrollService service = new DigitalScrollService(new DigitalScrollRepository(tempDir.resolve("versioned.db")),
+                uploads, new ScrollServiceOptions().retainedVersions(2));
+        java.util.Random random = new java.util.Random(3);
+        byte[] v1 = new byte[200_000];
+        random.nextBytes(v1);
+        byte[] v2 = v1.clone();
+        v2[1000] ^= 1;
+        byte[] v3 = new byte[v2.length + 5000];
+        System.arraycopy(v2, 0, v3, 5000, v2.length);
+        byte[] v4 = java.util.Arrays.copyOf(v3, v3.length - 2000);
+        Path source = tempDir.resolve("versioned.bin");
+        Files.write(source, v1);
+        DigitalScroll scroll = service.addScroll("owner", "Versioned", source.toString());
+        for (byte[] next : List.of(v2, v3, v4)) {
+            Files.write(source, next);
+            service.updateScroll("owner", scroll.getScrollId(), null, source.toString());
+        }
+
+        List<org.example.digital_scroll_management.ScrollVersion> versions = service.listScrollVersions(scroll.getScrollId());
+        assertEquals(List.of(4, 3, 2), versions.stream().map(org.example.digital_scroll_management.ScrollVersion::getVersion).toList());
+        assertTrue(versions.get(0).isCurrent());
+        assertEquals(v3.length, versions.get(1).getSize());
+        long historyBytes;
+        try (java.util.stream.Stream<Path> files = Files.walk(uploads.resolve("history"))) {
+            historyBytes = files.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+        assertTrue(historyBytes < v1.length / 10, "history should hold deltas, not copies: " + historyBytes);
+
+        DigitalScroll restored = service.restoreScrollVersion("owner", scroll.getScrollId(), 2);
+        assertArrayEquals(v2, Files.readAllBytes(Path.of(restored.getFilePath())));
+        assertEquals(5, restored.getUploadCount());
+        restored = service.restoreScrollVersion("owner", scroll.getScrollId(), 4);
+        assertArrayEquals(v4, Files.readAllBytes(Path.of(restored.getFilePath())));
+        assertThrows(IllegalArgumentException.class, () -> service.restoreScrollVersion("owner", scroll.getScrollId(), 1));
+
+        service.removeScroll("owner", scroll.getScrollId());
+        assertFalse(Files.exists(uploads.resolve("history").resolve(scroll.getScrollId())));
+    }
+
+    @Test
+    void archivesFullCopiesAboveDeltaLimit() throws Exception {
+        Path uploads = tempDir.resolve("large");
+        DigitalScrollService service = new DigitalScrollService(new DigitalScrollRepository(tempDir.resolve("large.db")),
+                uploads, new ScrollServiceOptions().retainedVersions(3).historyDeltaLimit(64 * 1024));
+        java.util.Random random = new java.util.Random(11);
+        byte[] v1 = new byte[300_000];
+        random.nextBytes(v1);
+        byte[] v2 = java.util.Arrays.copyOf(v1, 20_000);
+        byte[] v3 = new byte[150_000];
+        random.nextBytes(v3);
+        Path source = tempDir.resolve("large.bin");
+        Files.write(source, v1);
+        DigitalScroll scroll = service.addScroll("owner", "Large", source.toString());
+        for (byte[] next : List.of(v2, v3)) {
+            Files.write(source, next);
+            service.updateScroll("owner", scroll.getScrollId(), null, source.toString());
+        }
+
+        assertEquals(List.of(3, 2, 1), service.listScrollVersions(scroll.getScrollId()).stream()
+                .map(org.example.digital_scroll_management.ScrollVersion::getVersion).toList());
+        DigitalScroll restored = service.restoreScrollVersion("owner", scroll.getScrollId(), 1);
+        assertArrayEquals(v1, Files.readAllBytes(Path.of(restored.getFilePath())));
+        restored = service.restoreScrollVersion("owner", scroll.getScrollId(), 2);
+        assertArrayEquals(v2, Files.readAllBytes(Path.of(restored.getFilePath())));
+    }
+
+    @Test
+    void migratesFlatUploadsIntoShardedLayout() throws Exception {
+        Path storage = tempDir.resolve("sharded.db");
+        Path uploads = tempDir.resolve("sharded");
+        DigitalScrollService flat = new DigitalScrollService(new DigitalScrollRepository(storage, 50), uploads);
+        List<DigitalScroll> added = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Path source = tempDir.resolve("shard" + i + ".txt");
+            Files.writeString(source, "scroll " + i);
+            added.add(flat.addScroll("owner", "Shard " + i, source.toString()));
+        }
+        assertEquals(uploads, Path.of(added.get(0).getFilePath()).getParent());
+
+        org.example.storage.ShardedLayout layout = new org.example.storage.ShardedLayout(2, 2);
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage, 50);
+        DigitalScrollService sharded = new DigitalScrollService(repository, uploads,
+                new ScrollServiceOptions().layout(layout));
+        assertEquals(7, sharded.migrateStorageLayout(3, 2));
+        assertEquals(0, sharded.migrateStorageLayout(3, 2));
+        for (int i = 0; i < added.size(); i++) {
+            DigitalScroll scroll = new DigitalScrollRepository(storage, 50).findById(added.get(i).getScrollId());
+            Path migrated = Path.of(scroll.getFilePath());
+            assertEquals(uploads, migrated.getParent().getParent().getParent());
+            assertEquals(2, migrated.getParent().getFileName().toString().length());
+            assertEquals("scroll " + i, Files.readString(migrated));
+            assertTrue(Files.exists(migrated.resolveSibling(migrated.getFileName() + ".blocks")));
+            assertFalse(Files.exists(Path.of(added.get(i).getFilePath())));
+        }
+
+        Path source = tempDir.resolve("fresh.txt");
+        Files.writeString(source, "fresh");
+        DigitalScroll fresh = sharded.addScroll("owner", "Fresh", source.toString());
+        assertEquals(uploads, Path.of(fresh.getFilePath()).getParent().getParent().getParent());
+    }
+
+    @Test
+    void migratesSharedBlobsOnce() throws Exception {
+        Path storage = tempDir.resolve("shared.db");
+        Path uploads = tempDir.resolve("shared");
+        DigitalScrollService flat = new DigitalScrollService(new DigitalScrollRepository(storage), uploads,
+                new ScrollServiceOptions().deduplicateUploads(true));
+        Path source = tempDir.resolve("shared.bin");
+        Files.write(source, new byte[]{4, 5, 6});
+        DigitalScroll first = flat.addScroll("owner", "One", source.toString());
+        DigitalScroll second = flat.addScroll("owner", "Two", source.toString());
+
+        DigitalScrollService sharded = new DigitalScrollService(new DigitalScrollRepository(storage), uploads,
+                new ScrollServiceOptions().deduplicateUploads(true).layout(org.example.storage.ShardedLayout.TWO_LEVEL));
+        assertEquals(2, sharded.migrateStorageLayout(2, 1));
+        Path migrated = Path.of(sharded.getScroll(first.getScrollId()).getFilePath());
+        assertEquals(migrated.toString(), sharded.getScroll(second.getScrollId()).getFilePath());
+        assertFalse(Files.exists(Path.of(first.getFilePath())));
+        sharded.removeScroll("owner", first.getScrollId());
+        assertTrue(Files.exists(migrated));
+        sharded.removeScroll("owner", second.getScrollId());
+        assertFalse(Files.exists(migrated));
+    }
+
+    private List<String> ids(ScrollPage page) {
+        return page.getItems().stream().map(DigitalScroll::getScrollId).toList();
+    }
 }
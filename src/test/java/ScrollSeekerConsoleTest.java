@@ -147,4 +147,77 @@ class ScrollSeekerConsoleTest {
         assertTrue(output.contains("Guests cannot download scrolls."));
         assertTrue(output.contains("Invalid date, clearing filter."));
     }
+
+    @Test
+    void searchFiltersAcceptDateRanges() throws Exception {
+        ScrollContext context = createServiceWithScroll();
+        String today = context.scroll().getUploadTimestamp().toLocalDate().toString();
+        String input = String.join(System.lineSeparator(),
+                "3", "", "", "", "7d",
+                "3", "", "", "", "..2000-01-01",
+                "3", "", "", "", today + "..",
+                "3", "", "", "", "0d",
+                "5") + System.lineSeparator();
+        ScrollSeekerConsole console = new ScrollSeekerConsole(new Scanner(new StringReader(input)), context.service());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            console.viewAndDownloadMenu(true);
+        } finally {
+            System.setOut(original);
+        }
+
+        String output = out.toString();
+        assertEquals(3, output.split("ContextScroll", -1).length - 1);
+        assertTrue(output.contains("(no scrolls match filters)"));
+        assertTrue(output.contains("Invalid date, clearing filter."));
+    }
+
+    @Test
+    void adminListingShowsQueryPlan() throws Exception {
+        ScrollContext context = createServiceWithScroll();
+        String input = String.join(System.lineSeparator(), "3", "mage", "", "context", "", "5") + System.lineSeparator();
+        ScrollSeekerConsole console = new ScrollSeekerConsole(new Scanner(new StringReader(input)), context.service());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            console.viewAndDownloadMenu(true, true);
+        } finally {
+            System.setOut(original);
+        }
+
+        String output = out.toString();
+        assertTrue(output.contains("Query plan over 1 scrolls"));
+        assertTrue(output.contains("ContextScroll"));
+    }
+
+    @Test
+    void listingRendersResultsPageByPage() throws Exception {
+        Path storage = tempDir.resolve("paged-scrolls.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        for (int i = 1; i <= 45; i++) {
+            repository.save(new DigitalScroll(String.format("SC%04d", i), "Tome " + i, "mage", "f.bin", LocalDateTime.now(), 1, 0));
+        }
+        ScrollSeekerService service = new ScrollSeekerService(new DigitalScrollService(repository, tempDir.resolve("paged-uploads")));
+        String input = String.join(System.lineSeparator(), "1", "y", "n", "5") + System.lineSeparator();
+        ScrollSeekerConsole console = new ScrollSeekerConsole(new Scanner(new StringReader(input)), service);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            console.viewAndDownloadMenu(true);
+        } finally {
+            System.setOut(original);
+        }
+
+        String output = out.toString();
+        assertTrue(output.contains("ID=SC0040"));
+        assertFalse(output.contains("ID=SC0041"));
+        assertEquals(2, output.split("Show next page", -1).length - 1);
+    }
 }
@@ -1,7 +1,11 @@
 import org.example.digital_scroll_management.DigitalScroll;
 import org.example.digital_scroll_management.DigitalScrollRepository;
 import org.example.digital_scroll_management.DigitalScrollService;
+import org.example.digital_scroll_management.ScrollPage;
+import org.example.digital_scroll_management.ScrollServiceOptions;
+import org.example.digital_scroll_management.ScrollTransferEngine;
 import org.example.scroll_seeker.ScrollPreview;
+import org.example.scroll_seeker.ScrollQueryPlan;
 import org.example.scroll_seeker.ScrollSeekerService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -138,4 +142,257 @@ class ScrollSeekerServiceTest {
         String hex = seeker.buildPreview(scroll).getHexSample();
         assertTrue(hex.contains("\n"));
     }
+
+    @Test
+    void substringSearchUsesIndexAndVerifiesMatches() throws Exception {
+        Path storage = tempDir.resolve("indexed.db");
+        DigitalScrollService scrollService = new DigitalScrollService(new DigitalScrollRepository(storage), tempDir.resolve("indexed"));
+        Path file = tempDir.resolve("indexed.bin");
+        Files.write(file, new byte[]{1});
+        DigitalScroll fireball = scrollService.addScroll("pyromancer", "Fireball", file.toString());
+        scrollService.addScroll("pyromancer", "Firewall", file.toString());
+        scrollService.addScroll("cryomancer", "Ice Wall", file.toString());
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+
+        assertEquals(2, seeker.filterScrolls("", "", "FIRE", null).size());
+        assertEquals(2, seeker.filterScrolls("", "", "wall", null).size());
+        assertEquals(1, seeker.filterScrolls("cryo", "", "wall", null).size());
+        assertTrue(seeker.filterScrolls("", "", "ballwall", null).isEmpty());
+
+        scrollService.updateScroll("pyromancer", fireball.getScrollId(), "Meteor", null);
+        assertEquals(1, seeker.filterScrolls("", "", "fire", null).size());
+        assertEquals(fireball.getScrollId(), seeker.filterScrolls("PYRO", "", "teo", null).get(0).getScrollId());
+    }
+
+    @Test
+    void indexedAndFullScanResultsShareIdOrder() throws Exception {
+        Path storage = tempDir.resolve("ordered.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        DigitalScrollService scrollService = new DigitalScrollService(repository, tempDir.resolve("ordered"));
+        repository.save(new DigitalScroll("SC0003", "Wall of Fire", "mage", "a.bin", LocalDateTime.now(), 1, 0));
+        repository.save(new DigitalScroll("SC0001", "Wall of Ice", "mage", "b.bin", LocalDateTime.now(), 1, 0));
+        repository.save(new DigitalScroll("SC0002", "Stone Wall", "mage", "c.bin", LocalDateTime.now(), 1, 0));
+        for (int i = 4; i <= 9; i++) {
+            repository.save(new DigitalScroll("SC000" + i, "Bulk " + i, "scribe", "d.bin", LocalDateTime.now(), 1, 0));
+        }
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+
+        assertTrue(seeker.explainQuery("", "", "wa", null, null).isFullScan());
+        assertFalse(seeker.explainQuery("", "", "wall o", null, null).isFullScan());
+        List<String> expected = List.of("SC0001", "SC0002", "SC0003");
+        assertEquals(expected, seeker.filterScrolls("", "", "wa", null).stream().map(DigitalScroll::getScrollId).toList());
+        assertEquals(expected, seeker.filterScrolls("mage", "", "", null).stream().map(DigitalScroll::getScrollId).toList());
+        assertEquals(List.of("SC0001", "SC0003"),
+                seeker.filterScrolls("", "", "wall o", null).stream().map(DigitalScroll::getScrollId).toList());
+    }
+
+    @Test
+    void filterByUploadDateRange() throws Exception {
+        Path storage = tempDir.resolve("ranged.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        DigitalScrollService scrollService = new DigitalScrollService(repository, tempDir.resolve("ranged"));
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(new DigitalScroll("SC0001", "Ancient", "sage", "a.bin", now.minusDays(30), 1, 0));
+        repository.save(new DigitalScroll("SC0002", "Recent", "sage", "b.bin", now.minusDays(3), 1, 0));
+        repository.save(new DigitalScroll("SC0003", "Fresh", "sage", "c.bin", now, 1, 0));
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+        LocalDate today = now.toLocalDate();
+
+        assertEquals(2, seeker.filterScrolls("", "", "", today.minusDays(6), today).size());
+        assertEquals(List.of("SC0001", "SC0002"), seeker.filterScrolls("", "", "", null, today.minusDays(1))
+                .stream().map(DigitalScroll::getScrollId).toList());
+        assertEquals(1, seeker.filterScrolls("", "", "", today, null).size());
+        assertEquals(1, seeker.filterScrolls("", "", "rec", today.minusDays(6), today).size());
+        assertTrue(seeker.filterScrolls("", "", "", today, today.minusDays(1)).isEmpty());
+    }
+
+    @Test
+    void plannerDrivesFromMostSelectiveIndex() throws Exception {
+        Path storage = tempDir.resolve("planned.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        DigitalScrollService scrollService = new DigitalScrollService(repository, tempDir.resolve("planned"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 40; i++) {
+            repository.save(new DigitalScroll(String.format("SC%04d", i), "Bulk Scroll " + i, "archivist", "f.bin", now, 1, 0));
+        }
+        repository.save(new DigitalScroll("SC0041", "Moonlight Sonata", "archivist", "m.bin", now, 1, 0));
+        repository.save(new DigitalScroll("SC0042", "Moonrise", "bard", "r.bin", now, 1, 0));
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+
+        ScrollQueryPlan plan = seeker.explainQuery("archivist", "", "moon", null, null);
+        assertFalse(plan.isFullScan());
+        assertEquals(1, plan.getIntersectedSteps().size());
+        assertTrue(plan.getIntersectedSteps().get(0).getDescription().startsWith("name"));
+        assertTrue(plan.getVerifiedSteps().get(0).getDescription().startsWith("uploader"));
+        assertTrue(plan.explain().contains("drive"));
+        assertEquals(List.of("SC0041"), seeker.filterScrolls("archivist", "", "moon", null, null)
+                .stream().map(DigitalScroll::getScrollId).toList());
+        assertEquals(List.of("SC0041"), seeker.filterScrolls(plan).stream().map(DigitalScroll::getScrollId).toList());
+        assertEquals(List.of("SC0041"), seeker.filterScrollsPage(plan, null, 10).getItems()
+                .stream().map(DigitalScroll::getScrollId).toList());
+
+        ScrollQueryPlan broad = seeker.explainQuery("archivist", "", "", null, null);
+        assertTrue(broad.isFullScan());
+        assertEquals(41, seeker.filterScrolls("archivist", "", "", null, null).size());
+
+        ScrollQueryPlan shortFragment = seeker.explainQuery("", "", "mo", null, null);
+        assertTrue(shortFragment.isFullScan());
+        assertFalse(shortFragment.getVerifiedSteps().get(0).isIndexed());
+        assertEquals(2, seeker.filterScrolls("", "", "mo", null, null).size());
+    }
+
+    @Test
+    void indexedPagesSeekFromCursor() throws Exception {
+        Path storage = tempDir.resolve("paged.db");
+        DigitalScrollRepository repository = new DigitalScrollRepository(storage);
+        DigitalScrollService scrollService = new DigitalScrollService(repository, tempDir.resolve("paged"));
+        LocalDateTime old = LocalDateTime.of(2020, 1, 1, 12, 0);
+        for (int i = 40; i >= 1; i--) {
+            String name = (i % 4 == 0 ? "Moon Chant " : "Bulk Scroll ") + i;
+            repository.save(new DigitalScroll(String.format("SC%04d", i), name, "archivist", "f.bin",
+                    i % 5 == 0 ? old.plusMinutes(40 - i) : LocalDateTime.now(), 1, 0));
+        }
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+
+        List<String> byName = new java.util.ArrayList<>();
+        String cursor = null;
+        do {
+            ScrollPage page = seeker.filterScrollsPage("", "", "moon", null, null, cursor, 3);
+            assertTrue(page.getItems().size() <= 3);
+            page.getItems().forEach(scroll -> byName.add(scroll.getScrollId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(List.of("SC0004", "SC0008", "SC0012", "SC0016", "SC0020", "SC0024", "SC0028", "SC0032",
+                "SC0036", "SC0040"), byName);
+
+        LocalDate day = old.toLocalDate();
+        assertFalse(seeker.explainQuery("", "", "", day, day).isFullScan());
+        ScrollPage first = seeker.filterScrollsPage("", "", "", day, day, null, 5);
+        assertEquals(List.of("SC0040", "SC0035", "SC0030", "SC0025", "SC0020"),
+                first.getItems().stream().map(DigitalScroll::getScrollId).toList());
+        ScrollPage second = seeker.filterScrollsPage("", "", "", day, day, first.getNextCursor(), 5);
+        assertEquals(List.of("SC0015", "SC0010", "SC0005"),
+                second.getItems().stream().map(DigitalScroll::getScrollId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void downloadReportsProgressPerChunkAndSupportsCancellation() throws Exception {
+        Path storage = tempDir.resolve("chunked.db");
+        DigitalScrollService scrollService = new DigitalScrollService(new DigitalScrollRepository(storage),
+                tempDir.resolve("chunked"), new ScrollServiceOptions().transferEngine(new ScrollTransferEngine(4)));
+        Path file = tempDir.resolve("chunked.bin");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        List<Long> progress = new java.util.ArrayList<>();
+        DigitalScroll scroll = scrollService.addScroll("mage", "Chunked", file.toString(),
+                (done, total) -> progress.add(done), null);
+        assertEquals(List.of(4L, 8L, 10L), progress);
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+
+        Path target = tempDir.resolve("out").resolve("chunked.bin");
+        java.util.concurrent.atomic.AtomicInteger calls = new java.util.concurrent.atomic.AtomicInteger();
+        assertThrows(java.util.concurrent.CancellationException.class,
+                () -> seeker.downloadScroll(scroll, target, null, () -> calls.incrementAndGet() > 1));
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(target.resolveSibling("chunked.bin.part")));
+        assertEquals(0, scrollService.getScroll(scroll.getScrollId()).getDownloadCount());
+
+        seeker.downloadScroll(scroll, target);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(target));
+    }
+
+    @Test
+    void transferRejectsSourceThatShrinksMidCopy() throws Exception {
+        Path source = tempDir.resolve("shrinking.bin");
+        Files.write(source, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        Path target = tempDir.resolve("copy").resolve("shrinking.bin");
+        ScrollTransferEngine engine = new ScrollTransferEngine(4);
+
+        assertThrows(java.io.IOException.class, () -> engine.transfer(source, target, (done, total) -> {
+            try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(source,
+                    java.nio.file.StandardOpenOption.WRITE)) {
+                channel.truncate(6);
+            } catch (java.io.IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }, null));
+        assertFalse(Files.exists(target));
+        assertFalse(Files.exists(target.resolveSibling("shrinking.bin.part")));
+    }
+
+    @Test
+    void compressedScrollsDecodeTransparently() throws Exception {
+        Path uploads = tempDir.resolve("compressed");
+        DigitalScrollService scrollService = new DigitalScrollService(new DigitalScrollRepository(tempDir.resolve("compressed.db")),
+                uploads, new ScrollServiceOptions().retainedVersions(2).compressUploads(true));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            text.append("Line ").append(i).append(" of the ancient scroll of wisdom.\n");
+        }
+        byte[] content = text.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Path file = tempDir.resolve("wisdom.txt");
+        Files.write(file, content);
+        DigitalScroll scroll = scrollService.addScroll("sage", "Wisdom", file.toString());
+        Path stored = Path.of(scroll.getFilePath());
+        assertTrue(stored.toString().endsWith(".dfz"));
+        assertTrue(Files.size(stored) < content.length / 3);
+
+        byte[] noise = new byte[100_000];
+        new java.util.Random(5).nextBytes(noise);
+        Path noisy = tempDir.resolve("noise.bin");
+        Files.write(noisy, noise);
+        DigitalScroll raw = scrollService.addScroll("sage", "Noise", noisy.toString());
+        assertFalse(raw.getFilePath().endsWith(".dfz"));
+        assertEquals(noise.length, Files.size(Path.of(raw.getFilePath())));
+
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+        ScrollPreview preview = seeker.buildPreview(scroll);
+        assertTrue(preview.getSummary().contains("Size: " + content.length + " bytes"));
+        assertTrue(preview.getHexSample().startsWith("4C 69 6E 65 20 30"));
+
+        Path target = tempDir.resolve("out").resolve("wisdom.txt");
+        List<Long> progress = new java.util.ArrayList<>();
+        seeker.downloadScroll(scroll, target, (done, total) -> progress.add(total), null);
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(content.length, progress.get(0).longValue());
+        assertEquals(1, scrollService.getScroll(scroll.getScrollId()).getDownloadCount());
+
+        DigitalScroll replaced = scrollService.updateScroll("sage", scroll.getScrollId(), null, noisy.toString());
+        assertFalse(Files.exists(stored));
+        assertArrayEquals(noise, Files.readAllBytes(Path.of(replaced.getFilePath())));
+        DigitalScroll restored = scrollService.restoreScrollVersion("sage", scroll.getScrollId(), 1);
+        assertTrue(restored.getFilePath().endsWith(".dfz"));
+        seeker.downloadScroll(restored, target);
+        assertArrayEquals(content, Files.readAllBytes(target));
+    }
+
+    @Test
+    void userSuppliedDfzFilesAreServedRaw() throws Exception {
+        Path uploads = tempDir.resolve("plain");
+        DigitalScrollRepository repository = new DigitalScrollRepository(tempDir.resolve("plain.db"));
+        DigitalScrollService scrollService = new DigitalScrollService(repository, uploads);
+        byte[] content = "not really deflated".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        Path file = tempDir.resolve("notes.dfz");
+        Files.write(file, content);
+
+        DigitalScroll scroll = scrollService.addScroll("scribe", "Notes", file.toString());
+        assertFalse(scroll.getFilePath().endsWith(".dfz"));
+        assertTrue(scroll.getFilePath().endsWith("_dfz"));
+
+        Path legacy = uploads.resolve("legacy.dfz");
+        Files.write(legacy, content);
+        DigitalScroll old = new DigitalScroll(repository.generateId(), "Legacy", "scribe", legacy.toString(),
+                LocalDateTime.now(), 1, 0);
+        repository.save(old);
+
+        ScrollSeekerService seeker = new ScrollSeekerService(scrollService);
+        for (DigitalScroll stored : List.of(scroll, old)) {
+            ScrollPreview preview = seeker.buildPreview(stored);
+            assertTrue(preview.getSummary().contains("Size: " + content.length + " bytes"));
+            assertTrue(preview.getHexSample().startsWith("6E 6F 74"));
+            Path target = tempDir.resolve("out").resolve(stored.getScrollId());
+            seeker.downloadScroll(stored, target);
+            assertArrayEquals(content, Files.readAllBytes(target));
+        }
+    }
 }
@@ -1,6 +1,8 @@
 import org.example.user_management.PasswordHasher;
 import org.example.user_management.User;
+import org.example.user_management.UserImportReport;
 import org.example.user_management.UserManager;
+import org.example.user_management.UserRegistration;
 import org.example.user_management.UserRepository;
 import org.example.user_management.UserType;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,9 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,23 +53,153 @@ class UserManagerTest {
         assertNotNull(manager.login("zeyuan", "secret123"));
         assertNull(manager.login("zeyuan", "wrong"));
 
-        manager.updateFullName(user, "New Name");
-        manager.updateEmail(user, "new@example.com");
-        manager.updatePhone(user, "0461543210");
-        manager.changePassword(user, "newPass!");
-        manager.updateCustomId(user, "ZEY-02");
+        User updated = manager.updateFullName(user, "New Name");
+        updated = manager.updateEmail(updated, "new@example.com");
+        updated = manager.updatePhone(updated, "0461543210");
+        updated = manager.changePassword(updated, "newPass!");
+        updated = manager.updateCustomId(updated, "ZEY-02");
 
-        assertEquals("New Name", user.getFullName());
-        assertEquals("new@example.com", user.getEmail());
-        assertEquals("0461543210", user.getPhoneNumber());
+        assertEquals("New Name", updated.getFullName());
+        assertEquals("new@example.com", updated.getEmail());
+        assertEquals("0461543210", updated.getPhoneNumber());
         assertNotNull(manager.login("zeyuan", "newPass!"));
-        assertEquals("ZEY-02", user.getCustomId());
+        assertEquals("ZEY-02", updated.getCustomId());
+        assertSame(updated, manager.login("zeyuan", "newPass!"));
+        assertEquals("Zeyuan Z", user.getFullName());
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> manager.updateCustomId(user, "admin"));
         assertTrue(ex.getMessage().contains("unique"));
     }
 
+    @Test
+    void profilePicturesFollowInjectedLayoutAndMigrate() throws Exception {
+        UserRepository repository = new UserRepository(tempDir.resolve("users.db"));
+        Path pictures = tempDir.resolve("pictures");
+        UserManager flat = new UserManager(repository, new PasswordHasher(), pictures, org.example.storage.ShardedLayout.FLAT);
+        User user = flat.registerGeneralUser("painter", "secret123", "p@example.com", "0461567890", "Painter", "PNT-1");
+        Path source = tempDir.resolve("portrait.png");
+        Files.write(source, new byte[]{7, 7, 7});
+        User stored = flat.storeProfilePicture(user, source);
+        Path flatPath = Path.of(stored.getProfilePicturePath());
+        assertEquals(pictures.toAbsolutePath(), flatPath.getParent());
+
+        UserManager sharded = new UserManager(repository, new PasswordHasher(), pictures,
+                org.example.storage.ShardedLayout.TWO_LEVEL);
+        assertEquals(1, sharded.migrateProfilePictures());
+        assertEquals(0, sharded.migrateProfilePictures());
+        Path migrated = Path.of(new UserRepository(tempDir.resolve("users.db")).findByUsername("painter").getProfilePicturePath());
+        assertFalse(Files.exists(flatPath));
+        assertArrayEquals(new byte[]{7, 7, 7}, Files.readAllBytes(migrated));
+        assertEquals(pictures.toAbsolutePath(), migrated.getParent().getParent().getParent());
+    }
+
+    @Test
+    void bulkCreateAndDeleteAreAllOrNothing() {
+        UserManager manager = createManager();
+        manager.ensureDefaultAdmin();
+        UserRegistration first = new UserRegistration("bulk1", "secret", "b1@example.com", "0461000001",
+                "Bulk One", "B-1", UserType.GENERAL);
+        UserRegistration second = new UserRegistration("bulk2", "secret", "b2@example.com", "0461000002",
+                "Bulk Two", "B-2", null);
+        UserRegistration clash = new UserRegistration("bulk3", "secret", "b3@example.com", "0461000003",
+                "Bulk Three", "b-1", UserType.GENERAL);
+
+        assertThrows(IllegalArgumentException.class, () -> manager.createUsers(List.of(first, second, clash)));
+        assertEquals(1, manager.getAllUsers().size());
+
+        List<User> created = manager.createUsers(List.of(first, second));
+        assertEquals(UserType.GENERAL, created.get(1).getUserType());
+        UserRepository reloaded = new UserRepository(tempDir.resolve("users.db"));
+        assertNotNull(reloaded.findByCustomId("b-2"));
+        assertEquals(3, reloaded.getAllUsers().size());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.deleteUsers(List.of("bulk1", "admin")));
+        assertEquals(3, manager.getAllUsers().size());
+        manager.deleteUsers(List.of("bulk1", "bulk2"));
+        assertEquals(1, new UserRepository(tempDir.resolve("users.db")).getAllUsers().size());
+    }
+
+    @Test
+    void importUsersStreamsCsvAndReportsRejectedRows() throws Exception {
+        UserManager manager = createManager();
+        manager.ensureDefaultAdmin();
+        Path csv = tempDir.resolve("users.csv");
+        Files.write(csv, List.of(
+                "email,username,password,phone,fullName,customId,userType",
+                "a@example.com,alice,pw1,0461000001,\"Alice, A.\",ORG-1,",
+                "bad-email,bob,pw2,0461000002,Bob,ORG-2,GENERAL",
+                "c@example.com,carol,pw3,0461000003,Carol,org-1,GENERAL",
+                "",
+                "d@example.com,alice,pw4,0461000004,Alice Again,ORG-4,GENERAL",
+                "e@example.com,erin,pw5,0461000005,Erin,ORG-5,ADMIN",
+                "f@example.com,admin,pw6,0461000006,Imposter,ORG-6,GENERAL",
+                "g@example.com,gus,pw7,0461000007,Gus,ORG-7,WIZARD",
+                "h@example.com,hal,,0461000008,Hal,ORG-8,GENERAL"));
+
+        UserImportReport report = manager.importUsers(csv, 3, 2);
+        assertEquals(2, report.getImportedCount());
+        assertEquals(List.of(3L, 4L, 6L, 8L, 9L, 10L),
+                report.getErrors().stream().map(UserImportReport.RowError::lineNumber).toList());
+        assertEquals("Invalid email format.", report.getErrors().get(0).message());
+        assertEquals("Custom ID must be unique.", report.getErrors().get(1).message());
+
+        UserRepository reloaded = new UserRepository(tempDir.resolve("users.db"));
+        assertEquals("Alice, A.", reloaded.findByUsername("alice").getFullName());
+        assertEquals(UserType.ADMIN, reloaded.findByUsername("erin").getUserType());
+        assertNotNull(manager.login("alice", "pw1"));
+    }
+
+    @Test
+    void importRetriesBatchWithoutRowsTakenConcurrently() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        UserRepository repository = new UserRepository(storage) {
+            private boolean raced;
+
+            @Override
+            public CompletableFuture<Void> saveAll(Collection<User> users) {
+                if (!raced) {
+                    raced = true;
+                    save(new User("bob", "hash", "x@example.com", "0461999999", "Racer", "R-1", UserType.GENERAL));
+                    save(new User("zed", "hash", "z@example.com", "0461999998", "Zed", "C-3", UserType.GENERAL));
+                }
+                return super.saveAll(users);
+            }
+        };
+        UserManager manager = new UserManager(repository, new PasswordHasher());
+        Path csv = tempDir.resolve("race.csv");
+        Files.write(csv, List.of(
+                "amy,pw1,a@example.com,0461000001,Amy,A-1",
+                "bob,pw2,b@example.com,0461000002,Bob,B-2",
+                "cat,pw3,c@example.com,0461000003,Cat,C-3",
+                "dan,pw4,d@example.com,0461000004,Dan,D-4"));
+
+        UserImportReport report = manager.importUsers(csv, 2, 10);
+        assertEquals(2, report.getImportedCount());
+        assertEquals(List.of(2L, 3L), report.getErrors().stream().map(UserImportReport.RowError::lineNumber).toList());
+        assertEquals("Username already exists.", report.getErrors().get(0).message());
+        assertEquals("Custom ID must be unique.", report.getErrors().get(1).message());
+        assertNotNull(repository.findByUsername("amy"));
+        assertNotNull(repository.findByUsername("dan"));
+        assertEquals("Racer", repository.findByUsername("bob").getFullName());
+    }
+
+    @Test
+    void importUsersHandlesLargeFilesWithoutHeader() throws Exception {
+        UserManager manager = createManager();
+        Path csv = tempDir.resolve("bulk.csv");
+        List<String> lines = new java.util.ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            lines.add("user" + i + ",secret" + i + ",u" + i + "@example.com,0461" + (1_000_000 + i) + ",User " + i + ",U-" + i);
+        }
+        Files.write(csv, lines);
+
+        UserImportReport report = manager.importUsers(csv);
+        assertEquals(20_000, report.getImportedCount());
+        assertEquals(0, report.getRejectedCount());
+        assertEquals(20_000, new UserRepository(tempDir.resolve("users.db")).getAllUsers().size());
+    }
+
     @Test
     void createUserRejectsDuplicates() {
         UserManager manager = createManager();
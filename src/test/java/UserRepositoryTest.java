@@ -1,11 +1,16 @@
 import org.example.user_management.User;
+import org.example.user_management.UserBatch;
 import org.example.user_management.UserRepository;
+import org.example.user_management.UserSnapshot;
 import org.example.user_management.UserType;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,6 +52,69 @@ class UserRepositoryTest {
         assertTrue(repository.hasAdmin());
     }
 
+    @Test
+    void readsServeImmutableSnapshotsWithoutWriterLock() throws Exception {
+        UserRepository repository = new UserRepository(tempDir.resolve("users.db"));
+        repository.save(new User("alpha", "hash", null, null, null, "A-1", UserType.GENERAL));
+        List<User> before = repository.getAllUsers();
+        long version = repository.getVersion();
+
+        repository.save(new User("beta", "hash", null, null, null, "B-1", UserType.ADMIN));
+        assertEquals(1, before.size());
+        assertEquals(2, repository.getAllUsers().size());
+        assertEquals(version + 1, repository.getVersion());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(null));
+
+        synchronized (repository) {
+            CompletableFuture<User> read = CompletableFuture.supplyAsync(() -> repository.findByCustomId("b-1"));
+            assertEquals("beta", read.get(5, TimeUnit.SECONDS).getUsername());
+            assertTrue(CompletableFuture.supplyAsync(repository::hasAdmin).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void publishedSnapshotsKeepInsertionOrderAcrossShards() {
+        UserRepository repository = new UserRepository(tempDir.resolve("users.db"), 60_000);
+        for (int i = 0; i < 600; i++) {
+            repository.save(new User("user" + i, "hash", null, null, null, "ID-" + i, UserType.GENERAL));
+        }
+        List<User> before = repository.getAllUsers();
+
+        repository.save(new User("user0", "hash2", null, null, "Renamed", "ID-0", UserType.ADMIN));
+        repository.delete("user300");
+        List<User> after = repository.getAllUsers();
+        assertEquals(600, before.size());
+        assertEquals(599, after.size());
+        assertEquals("Renamed", after.get(0).getFullName());
+        assertEquals("user599", after.get(598).getUsername());
+        assertEquals("user301", after.get(300).getUsername());
+        assertEquals("hash", before.get(0).getPasswordHash());
+        assertNull(repository.findByCustomId("id-300"));
+        assertEquals("user299", repository.findByCustomId("ID-299").getUsername());
+        assertEquals(1, repository.countByType(UserType.ADMIN));
+        repository.close();
+    }
+
+    @Test
+    void compareAndSetUpdatesRejectStaleVersions() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        UserRepository repository = new UserRepository(storage);
+        User user = new User("alpha", "hash", "a@example.com", null, "Alpha", "A-1", UserType.GENERAL);
+        repository.save(user);
+        UserSnapshot initial = repository.findSnapshot("alpha");
+
+        UserSnapshot updated = repository.update("alpha", initial.version(),
+                current -> current.withEmail("b@example.com")).orElseThrow();
+        assertEquals(initial.version() + 1, updated.version());
+        assertEquals("a@example.com", initial.email());
+        assertEquals("b@example.com", repository.findByUsername("alpha").getEmail());
+        assertEquals("a@example.com", user.getEmail());
+        assertTrue(repository.update("alpha", initial.version(), current -> current.withEmail("c@example.com")).isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.update("ghost", current -> current.withEmail("x@example.com")));
+        assertEquals("b@example.com", new UserRepository(storage).findByUsername("alpha").getEmail());
+    }
+
     @Test
     void saveAndDeletePersistData() throws Exception {
         Path storage = tempDir.resolve("users.db");
@@ -66,4 +134,146 @@ class UserRepositoryTest {
         assertNull(repository.findByCustomId(null));
         assertFalse(repository.hasAdmin());
     }
+
+    @Test
+    void groupCommitCoalescesWritesUntilFlush() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        UserRepository repository = new UserRepository(storage, 10_000);
+        assertTrue(repository.isGroupCommit());
+
+        var first = repository.saveAsync(new User("alpha", "hash", "a@example.com", "1", "Alpha", "A-1", UserType.GENERAL));
+        var second = repository.saveAsync(new User("beta", "hash", "b@example.com", "2", "Beta", "B-1", UserType.ADMIN));
+        assertSame(first, second);
+        assertFalse(Files.exists(storage));
+        assertEquals("beta", repository.findByUsername("beta").getUsername());
+
+        repository.flush().get();
+        assertTrue(first.isDone());
+        assertEquals(2, new UserRepository(storage).getAllUsers().size());
+        repository.close();
+    }
+
+    @Test
+    void closeFlushesPendingGroupCommit() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        UserRepository repository = new UserRepository(storage, 10_000);
+        repository.save(new User("gamma", "hash", "g@example.com", "3", "Gamma", "G-1", UserType.GENERAL));
+        repository.close();
+
+        assertNotNull(new UserRepository(storage).findByUsername("gamma"));
+        assertThrows(IllegalStateException.class,
+                () -> repository.save(new User("late", "hash", "", "", "", "L-1", UserType.GENERAL)));
+    }
+
+    @Test
+    void batchesRejectMissingDeleteTargetsBeforeApplying() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        UserRepository repository = new UserRepository(storage);
+        repository.save(new User("alpha", "hash", "a@example.com", "1", "Alpha", "A-1", UserType.GENERAL));
+        User beta = new User("beta", "hash", "b@example.com", "2", "Beta", "B-1", UserType.GENERAL);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.applyBatch(new UserBatch().save(beta).delete("ghost")));
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.applyBatch(new UserBatch().delete("alpha").delete("alpha")));
+        assertNull(repository.findByUsername("beta"));
+        assertNotNull(repository.findByUsername("alpha"));
+
+        repository.saveAll(List.of(beta)).get();
+        repository.deleteAll(List.of("alpha")).get();
+        UserRepository reloaded = new UserRepository(storage);
+        assertNull(reloaded.findByUsername("alpha"));
+        assertNotNull(reloaded.findByUsername("beta"));
+    }
+
+    @Test
+    void groupCommitSurfacesFailedWritesOnNextFlush() throws Exception {
+        Path blocked = tempDir.resolve("blocked");
+        Path storage = blocked.resolve("users.db");
+        UserRepository repository = new UserRepository(storage, 10);
+        Files.writeString(blocked, "not a directory");
+
+        repository.save(new User("alpha", "hash", "a@example.com", "1", "Alpha", "A-1", UserType.GENERAL));
+        java.util.concurrent.ExecutionException failure = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> repository.flush().get());
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+        repository.flush().get();
+
+        Files.delete(blocked);
+        repository.save(new User("beta", "hash", "b@example.com", "2", "Beta", "B-1", UserType.GENERAL));
+        repository.flush().get();
+        repository.close();
+        assertEquals(2, new UserRepository(storage).getAllUsers().size());
+        assertFalse(Files.exists(blocked.resolve("users.db.tmp")));
+    }
+
+    @Test
+    void binarySnapshotMigratesAndRoundTrips() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        Files.writeString(storage, "legacy|hash|legacy@example.com|123|Legacy|LEG-1|ADMIN|/pics/legacy.png");
+
+        UserRepository repository = new UserRepository(storage, 0, true);
+        assertFalse(Files.exists(storage));
+        assertTrue(Files.exists(tempDir.resolve("users.db.snap")));
+        repository.save(new User("plain", "hash2", null, null, "Plain", "PL-1", UserType.GENERAL));
+
+        UserRepository reloaded = new UserRepository(storage);
+        User legacy = reloaded.findByUsername("legacy");
+        assertEquals(UserType.ADMIN, legacy.getUserType());
+        assertEquals("/pics/legacy.png", legacy.getProfilePicturePath());
+        User plain = reloaded.findByUsername("plain");
+        assertEquals("", plain.getEmail());
+        assertNull(plain.getProfilePicturePath());
+    }
+
+    @Test
+    void customIdIndexFollowsUpdatesAndDeletes() {
+        UserRepository repository = new UserRepository(tempDir.resolve("users.db"));
+        User user = new User("alpha", "hash", "a@example.com", "1", "Alpha", "Alpha-ID", UserType.GENERAL);
+        repository.save(user);
+        assertEquals("alpha", repository.findByCustomId("ALPHA-id").getUsername());
+
+        user.setCustomId("Renamed");
+        repository.save(user);
+        assertNull(repository.findByCustomId("alpha-id"));
+        assertEquals("alpha", repository.findByCustomId("renamed").getUsername());
+
+        repository.delete("alpha");
+        assertNull(repository.findByCustomId("renamed"));
+    }
+
+    @Test
+    void duplicateLegacyCustomIdsStayFindableAfterDelete() throws Exception {
+        Path storage = tempDir.resolve("users.db");
+        Files.writeString(storage, String.join(System.lineSeparator(),
+                "first|hash|first@example.com|1|First|DUP-1|GENERAL",
+                "second|hash|second@example.com|2|Second|dup-1|GENERAL"));
+        UserRepository repository = new UserRepository(storage);
+        assertEquals("first", repository.findByCustomId("DUP-1").getUsername());
+
+        repository.delete("first");
+        assertEquals("second", repository.findByCustomId("dup-1").getUsername());
+
+        repository.delete("second");
+        assertNull(repository.findByCustomId("dup-1"));
+    }
+
+    @Test
+    void typeCountersTrackPromotionsAndDeletes() {
+        UserRepository repository = new UserRepository(tempDir.resolve("users.db"));
+        User user = new User("alpha", "hash", "a@example.com", "1", "Alpha", "A-1", UserType.GENERAL);
+        repository.save(user);
+        repository.save(new User("beta", "hash", "b@example.com", "2", "Beta", "B-1", UserType.GENERAL));
+        assertFalse(repository.hasAdmin());
+        assertEquals(2, repository.countByType(UserType.GENERAL));
+
+        user.setUserType(UserType.ADMIN);
+        repository.save(user);
+        assertTrue(repository.hasAdmin());
+        assertEquals(1, repository.countByType(UserType.GENERAL));
+
+        repository.delete("alpha");
+        assertFalse(repository.hasAdmin());
+        assertEquals(1, repository.getAllUsers().size());
+    }
 }